@@ -0,0 +1,258 @@
+package banking;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the accounts by card number, holding the stored PIN and the balance of an account, or the fact
+ * that there is no account with the number. The least recently used entries are evicted first.
+ * <p>
+ * The cache is split into segments, every one a LinkedHashMap in the access order guarded by its own lock,
+ * so that the sessions reading different accounts rarely wait for each other. It is kept up to date by
+ * write-through: every change of an account made through the repository or the ledger updates or invalidates
+ * its entry. An entry loaded from the database is stored only if no change of its segment happened during
+ * the load, so a load racing with a change never brings back the value before the change.
+ * <p>
+ * The cache assumes the process owns the database, changes made by other processes are not seen.
+ */
+final class AccountCache {
+    static final int DEFAULT_CAPACITY = 100_000;                       // entries kept by default
+    static final Entry MISSING = new Entry(null, -1);                  // entry of a number without an account
+    private static final int SEGMENTS = 16;                            // number of independently locked parts
+    private final int capacity;                                        // maximum number of entries
+    private final Segment[] segments;                                  // the parts of the cache
+    private final LongAdder hits = new LongAdder();                    // lookups answered by the cache
+    private final LongAdder misses = new LongAdder();                  // lookups which went to the database
+    private final LongAdder evictions = new LongAdder();               // entries evicted to keep the capacity
+
+    /**
+     * Creates the cache.
+     * @param capacity the maximum number of entries, 0 to disable the cache
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    AccountCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+        }
+        this.capacity = capacity;
+        this.segments = new Segment[SEGMENTS];
+        int segmentCapacity = (capacity + SEGMENTS - 1) / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * Gets the cached entry of the account, counting a hit or a miss.
+     * @param number the card number
+     * @return the entry, {@link #MISSING} if there is no such account or {@code null} if the number is not cached
+     */
+    Entry get(String number) {
+        if (capacity == 0) {
+            misses.increment();
+            return null;
+        }
+        Segment segment = segment(number);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.entries.get(number);
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the cached entry of the account without counting a hit or a miss, for the lookups which are not made
+     * on behalf of a session and so should not affect the sizing of the cache.
+     * @param number the card number
+     * @return the entry, {@link #MISSING} if there is no such account or {@code null} if the number is not cached
+     */
+    Entry peek(String number) {
+        Segment segment = segment(number);
+        synchronized (segment) {
+            return segment.entries.get(number);
+        }
+    }
+
+    /**
+     * Gets the version of the segment of the number, to be passed to {@link #putLoaded} after loading the entry.
+     * @param number the card number
+     * @return the version
+     */
+    long version(String number) {
+        Segment segment = segment(number);
+        synchronized (segment) {
+            return segment.version;
+        }
+    }
+
+    /**
+     * Stores the entry loaded from the database, unless the segment changed since the version was taken.
+     * @param number the card number
+     * @param entry the loaded entry
+     * @param version the version taken before the load
+     */
+    void putLoaded(String number, Entry entry, long version) {
+        if (capacity == 0) {
+            return;
+        }
+        Segment segment = segment(number);
+        synchronized (segment) {
+            if (segment.version == version) {
+                segment.entries.put(number, entry);
+            }
+        }
+    }
+
+    /**
+     * Stores the entry after the account was created or closed.
+     * @param number the card number
+     * @param entry the new entry
+     */
+    void put(String number, Entry entry) {
+        Segment segment = segment(number);
+        synchronized (segment) {
+            segment.version++;
+            if (capacity > 0) {
+                segment.entries.put(number, entry);
+            }
+        }
+    }
+
+    /**
+     * Changes the balance of the cached account, an account which is not cached stays so.
+     * @param number the card number
+     * @param balance the new balance
+     */
+    void updateBalance(String number, long balance) {
+        Segment segment = segment(number);
+        synchronized (segment) {
+            segment.version++;
+            Entry entry = segment.entries.get(number);
+            if (entry != null && entry != MISSING) {
+                segment.entries.put(number, new Entry(entry.pin, balance));
+            }
+        }
+    }
+
+    /**
+     * Changes the stored PIN of the cached account, an account which is not cached stays so.
+     * @param number the card number
+     * @param pin the new stored PIN
+     */
+    void updatePin(String number, String pin) {
+        Segment segment = segment(number);
+        synchronized (segment) {
+            segment.version++;
+            Entry entry = segment.entries.get(number);
+            if (entry != null && entry != MISSING) {
+                segment.entries.put(number, new Entry(pin, entry.balance));
+            }
+        }
+    }
+
+    /**
+     * Removes the entry of the account, so that it is loaded again on the next lookup.
+     * @param number the card number
+     */
+    void invalidate(String number) {
+        Segment segment = segment(number);
+        synchronized (segment) {
+            segment.version++;
+            segment.entries.remove(number);
+        }
+    }
+
+    /**
+     * Gets the number of lookups answered by the cache.
+     * @return the number of hits
+     */
+    long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups which went to the database.
+     * @return the number of misses
+     */
+    long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of entries evicted to keep the capacity.
+     * @return the number of evictions
+     */
+    long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the number of cached entries.
+     * @return the number of entries
+     */
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Describes the use of the cache, for sizing it.
+     * @return the hits, misses, hit rate, evictions and size
+     */
+    String stats() {
+        long hits = hits();
+        long misses = misses();
+        return String.format("hits %d, misses %d, hit rate %.1f%%, evictions %d, size %d of %d", hits, misses,
+                hits + misses == 0 ? 0.0 : 100.0 * hits / (hits + misses), evictions(), size(), capacity);
+    }
+
+    private Segment segment(String number) {
+        int hash = number.hashCode();
+        return segments[(hash ^ hash >>> 16) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Cached state of an account.
+     */
+    static final class Entry {
+        final String pin;                                              // stored PIN of the account, see Credentials
+        final long balance;                                            // balance of the account
+
+        Entry(String pin, long balance) {
+            this.pin = pin;
+            this.balance = balance;
+        }
+    }
+
+    /**
+     * Independently locked part of the cache.
+     */
+    private final class Segment {
+        private final Map<String, Entry> entries;                      // in the order from the least recently used
+        private long version;                                          // number of changes of the segment
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
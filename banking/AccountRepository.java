@@ -0,0 +1,768 @@
+package banking;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Data access layer for the accounts table. Instead of opening a new connection for every statement, it keeps
+ * a small pool of long-lived connections and every connection keeps its prepared statements, so an operation
+ * costs only the execution of the statement. The connections are opened lazily, in WAL mode with
+ * {@code synchronous=NORMAL}, so readers do not block the writer and a commit does not wait for an fsync.
+ * <p>
+ * The repository can be shared by many threads, each operation borrows a connection for its duration.
+ * Operations changing several rows run in one transaction, which is retried when the database is busy.
+ * SQLite has a single writer, so the writes of the repository take turns on a fair lock instead of
+ * polling the lock of the database, which would let some of them starve under load.
+ * <p>
+ * The lookups of an account by number, for its balance, its existence and logging in, can be answered
+ * from a bounded {@link AccountCache} of the recently used accounts, which every change made through
+ * the repository or the {@link Ledger} writes through. The cache is off unless its capacity is given.
+ * Once {@link #loadNumbers} is called, a {@link NumberFilter} of all the card numbers answers most lookups
+ * of numbers without an account, such as new random numbers and mistyped ones, without a query.
+ * <p>
+ * The PINs are stored hashed by {@link Credentials}, which also throttles the logins failing on a card.
+ */
+public final class AccountRepository implements AutoCloseable {
+    public static final int DEFAULT_POOL_SIZE = 4;                    // connections kept by default
+    private static final int MIN_FILTER_CAPACITY = 1_000_000;         // numbers the filter is sized for at least
+    private static final int HASH_BATCH = 1000;                       // plain PINs hashed in one transaction
+    private static final int BUSY_TIMEOUT = 5000;                     // ms to wait for a lock of the database
+    private static final int MAX_ATTEMPTS = 10;                       // tries of a transaction while busy
+    private static final int SQLITE_BUSY = 5;                         // primary result code of a busy database
+    private final String url;                                         // JDBC url of the database
+    private final int poolSize;                                       // maximum number of connections
+    private final BlockingQueue<PooledConnection> idle;               // connections not borrowed at the moment
+    private final AtomicInteger opened = new AtomicInteger();         // connections opened and not closed yet
+    private final ReentrantLock writer = new ReentrantLock(true);     // held by the write in progress
+    private final AccountCache cache;                                 // recently used accounts
+    private final Credentials credentials;                            // hashes and verifies the PINs
+    private final AtomicBoolean loadingNumbers = new AtomicBoolean(); // true while a filter is being built
+    private volatile NumberFilter numbers;                            // all the card numbers, null if not loaded
+    private volatile NumberFilter nextNumbers;                        // filter being built, null if none
+    private volatile boolean closed;                                  // true once the repository is closed
+
+    /**
+     * Creates the repository for the database file with the default pool size.
+     * @param db the database file
+     */
+    public AccountRepository(String db) {
+        this(db, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Creates the repository for the database file.
+     * @param db the database file
+     * @param poolSize the maximum number of connections kept open
+     * @throws IllegalArgumentException if the pool size is not positive
+     */
+    public AccountRepository(String db, int poolSize) {
+        this(db, poolSize, 0);
+    }
+
+    /**
+     * Creates the repository for the database file with a cache of the accounts.
+     * @param db the database file
+     * @param poolSize the maximum number of connections kept open
+     * @param cacheSize the maximum number of accounts kept in the cache, 0 for no cache
+     * @throws IllegalArgumentException if the pool size is not positive or the cache size is negative
+     */
+    public AccountRepository(String db, int poolSize, int cacheSize) {
+        this(db, poolSize, cacheSize, Credentials.DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Creates the repository for the database file with a cache of the accounts and the work factor of the PINs.
+     * @param db the database file
+     * @param poolSize the maximum number of connections kept open
+     * @param cacheSize the maximum number of accounts kept in the cache, 0 for no cache
+     * @param pinIterations the number of iterations of the hashes of the PINs stored from now on
+     * @throws IllegalArgumentException if the pool size or the iterations are not positive or the cache size
+     *                                  is negative
+     */
+    public AccountRepository(String db, int poolSize, int cacheSize, int pinIterations) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be positive: " + poolSize);
+        }
+        this.url = "jdbc:sqlite:" + db;
+        this.poolSize = poolSize;
+        this.idle = new ArrayBlockingQueue<>(poolSize, true);
+        this.cache = new AccountCache(cacheSize);
+        this.credentials = new Credentials(pinIterations);
+    }
+
+    /**
+     * Creates the accounts table or upgrades it to the latest schema, see {@link Migrations}.
+     * @param compactNumbers {@code true} to store the card numbers as INTEGER
+     * @throws SQLException if the migration fails, the database is then left at its previous version
+     */
+    public void migrate(boolean compactNumbers) throws SQLException {
+        int target = compactNumbers ? Migrations.COMPACT_NUMBERS : Migrations.INDEXED_NUMBERS;
+        transaction(connection -> {
+            Migrations.migrate(connection.connection, target);
+            return null;
+        });
+    }
+
+    /**
+     * Adds the new account with the specific number and pin, storing the pin hashed.
+     * @param number the account number
+     * @param pin the pin to log in with
+     * @throws SQLException if the statement fails
+     */
+    public void insert(String number, String pin) throws SQLException {
+        String hashed = credentials.hash(pin);
+        write(connection -> {
+            addNumber(number);
+            PreparedStatement statement = connection.prepare("INSERT INTO accounts(number, pin) VALUES(?,?)");
+            statement.setString(1, number);
+            statement.setString(2, hashed);
+            return statement.executeUpdate();
+        });
+        cache.put(number, new AccountCache.Entry(hashed, 0));
+        growNumbers();
+    }
+
+    /**
+     * Adds many new accounts in one transaction, sending the inserts to the database in one batch.
+     * Numbers which already exist are skipped. The pins are hashed on all the workers of {@link Credentials}
+     * before the transaction, which at a high work factor takes much longer than the inserts.
+     * @param numbers the account numbers
+     * @param pins the pins of the accounts
+     * @param count the number of accounts to add from the beginning of the arrays
+     * @return for every account 1 if it was added, 0 if its number already existed
+     * @throws SQLException if the inserts fail, then none of the accounts is added
+     */
+    public int[] insertAll(String[] numbers, String[] pins, int count) throws SQLException {
+        String[] hashed = credentials.hashAll(pins, count);
+        int[] inserted = transaction(connection -> {
+            PreparedStatement statement = connection.prepare("INSERT OR IGNORE INTO accounts(number, pin) VALUES(?,?)");
+            for (int i = 0; i < count; i++) {
+                addNumber(numbers[i]);
+                statement.setString(1, numbers[i]);
+                statement.setString(2, hashed[i]);
+                statement.addBatch();
+            }
+            return statement.executeBatch();
+        });
+        // the new accounts are not cached, the numbers may be cached as missing
+        for (int i = 0; i < count; i++) {
+            cache.invalidate(numbers[i]);
+        }
+        growNumbers();
+        return inserted;
+    }
+
+    /**
+     * Passes the numbers of all the accounts to the action, in no particular order.
+     * @param action the action to call for every account number
+     * @throws SQLException if the query fails
+     */
+    public void forEachNumber(Consumer<String> action) throws SQLException {
+        execute(connection -> {
+            PreparedStatement statement = connection.prepare("SELECT number FROM accounts");
+            try (ResultSet set = statement.executeQuery()) {
+                while (set.next()) {
+                    action.accept(set.getString(1));
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Builds the filter of all the card numbers in the database, so that the lookups of the numbers without
+     * an account do not query it. The filter is sized for twice the accounts and built again, twice as big,
+     * once the inserted accounts fill it, which also drops the numbers of the closed accounts.
+     * @throws SQLException if the numbers cannot be read, the previous filter is then kept
+     */
+    public void loadNumbers() throws SQLException {
+        if (!loadingNumbers.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int accounts = execute(connection -> {
+                PreparedStatement statement = connection.prepare("SELECT count(*) FROM accounts");
+                try (ResultSet set = statement.executeQuery()) {
+                    set.next();
+                    return set.getInt(1);
+                }
+            });
+            NumberFilter filter = new NumberFilter((int) Math.min(Integer.MAX_VALUE / 2,
+                    Math.max(MIN_FILTER_CAPACITY, 2L * accounts)));
+            // once the inserts add to the new filter too, every number is either in the database read below
+            // or added by its insert, which adds it while holding the lock
+            writer.lock();
+            nextNumbers = filter;
+            writer.unlock();
+            boolean loaded = false;
+            try {
+                forEachNumber(filter::add);
+                loaded = true;
+            } finally {
+                // published under the lock, so that no insert adds its number to neither filter
+                writer.lock();
+                if (loaded) {
+                    numbers = filter;
+                }
+                if (nextNumbers == filter) {
+                    nextNumbers = null;
+                }
+                writer.unlock();
+            }
+        } finally {
+            loadingNumbers.set(false);
+        }
+    }
+
+    /**
+     * Describes the filter of the card numbers.
+     * @return the count, the memory and the false positive rates, or that the filter is not loaded
+     */
+    String numbersStats() {
+        NumberFilter filter = numbers;
+        return filter == null ? "not loaded" : filter.stats();
+    }
+
+    /**
+     * Checks if the number may have an account, without a query.
+     * @param number the card number
+     * @return {@code false} if there is surely no such account
+     */
+    boolean mightExist(String number) {
+        NumberFilter filter = numbers;
+        return filter == null || filter.mightContain(number);
+    }
+
+    /**
+     * Gets the account number for the number and pin if such an account exists. A card locked after failed
+     * attempts is refused without checking the pin, see {@link #retryAfter}. A pin stored in plain text
+     * or with another work factor is hashed again with the current one.
+     * @param number the account number
+     * @param pin the pin of the account
+     * @return the account number if the values are correct, otherwise an empty String
+     * @throws SQLException if the query fails
+     */
+    public String validateLogin(String number, String pin) throws SQLException {
+        if (credentials.retryAfter(number) > 0) {
+            return "";
+        }
+        AccountCache.Entry entry = load(number);
+        if (entry == AccountCache.MISSING || entry.pin == null || !credentials.verify(number, entry.pin, pin)) {
+            return "";
+        }
+        if (credentials.needsRehash(entry.pin)) {
+            String hashed = credentials.hash(pin);
+            int updated = write(connection -> {
+                PreparedStatement statement = connection.prepare("UPDATE accounts SET pin = ? WHERE number = ? AND pin = ?");
+                statement.setString(1, hashed);
+                statement.setString(2, number);
+                statement.setString(3, entry.pin);
+                return statement.executeUpdate();
+            });
+            if (updated > 0) {
+                cache.updatePin(number, hashed);
+            }
+        }
+        return number;
+    }
+
+    /**
+     * Gets the time until the logins of the card are accepted again, after too many failed ones.
+     * @param number the account number
+     * @return the time in milliseconds, 0 if the card is not locked
+     */
+    public long retryAfter(String number) {
+        return credentials.retryAfter(number);
+    }
+
+    /**
+     * Hashes the pins still stored in plain text, by a database from before the pins were hashed. The pins are
+     * hashed in batches, each stored in one transaction, so that the work done is kept if it is interrupted.
+     * In the background the pins are hashed one at a time, so that the hashes of the logins wait for at most
+     * one of them, and the work stops once the repository is closed.
+     * @param background {@code true} to leave the workers to the logins, {@code false} to use all of them
+     * @return the number of pins hashed
+     * @throws SQLException if the pins cannot be read or stored
+     */
+    public int hashPins(boolean background) throws SQLException {
+        int total = 0;
+        long after = 0;
+        while (!closed) {
+            List<String> numbers = new ArrayList<>(HASH_BATCH);
+            List<String> pins = new ArrayList<>(HASH_BATCH);
+            // the batches go by id, so that every one continues where the one before ended
+            long from = after;
+            long last = execute(connection -> {
+                PreparedStatement statement = connection.prepare("SELECT id, number, pin FROM accounts "
+                        + "WHERE id > ? AND pin NOT LIKE 'pbkdf2$%' ORDER BY id LIMIT ?");
+                statement.setLong(1, from);
+                statement.setInt(2, HASH_BATCH);
+                long id = -1;
+                try (ResultSet set = statement.executeQuery()) {
+                    while (set.next()) {
+                        id = set.getLong(1);
+                        numbers.add(set.getString(2));
+                        pins.add(set.getString(3));
+                    }
+                }
+                return id;
+            });
+            if (numbers.isEmpty()) {
+                return total;
+            }
+            after = last;
+            String[] hashed;
+            if (background) {
+                List<String> done = new ArrayList<>(pins.size());
+                while (done.size() < pins.size() && !closed) {
+                    done.add(credentials.hash(pins.get(done.size())));
+                }
+                if (done.isEmpty()) {
+                    break;
+                }
+                hashed = done.toArray(new String[0]);
+            } else {
+                hashed = credentials.hashAll(pins.toArray(new String[0]), pins.size());
+            }
+            // a pin changed meanwhile is already hashed and stays as it is
+            int[] updated = transaction(connection -> {
+                PreparedStatement statement = connection.prepare("UPDATE accounts SET pin = ? WHERE number = ? AND pin = ?");
+                for (int i = 0; i < hashed.length; i++) {
+                    statement.setString(1, hashed[i]);
+                    statement.setString(2, numbers.get(i));
+                    statement.setString(3, pins.get(i));
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            });
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] > 0) {
+                    cache.invalidate(numbers.get(i));
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Gets the balance of the specific account.
+     * @param number the account number
+     * @return the balance, -1 if there is no such account
+     * @throws SQLException if the query fails
+     */
+    public int balance(String number) throws SQLException {
+        return (int) load(number).balance;
+    }
+
+    /**
+     * Adds the specific amount of money to the account.
+     * @param number the account number
+     * @param amount the amount of money to be added
+     * @throws SQLException if the statement fails
+     */
+    public void addMoney(String number, int amount) throws SQLException {
+        write(connection -> {
+            PreparedStatement statement = connection.prepare("UPDATE accounts SET balance = balance + ? WHERE number = ?");
+            statement.setInt(1, amount);
+            statement.setString(2, number);
+            return statement.executeUpdate();
+        });
+        cache.invalidate(number);
+    }
+
+    /**
+     * Transfers the money from one account to another in one transaction. The balance is checked by the debit
+     * itself, which changes the row only if the balance covers the amount, so concurrent transfers can never
+     * take more than there is and either both accounts change or none does.
+     * It goes around the {@link Ledger}: a group counting on the money taken fails when it is applied.
+     * @param numberFrom the account the money is taken from
+     * @param numberTo the account the money is added to
+     * @param amount the amount of money to transfer
+     * @return the result of the transfer
+     * @throws SQLException if one of the statements fails or the database stays busy
+     * @throws IllegalArgumentException if the amount is not positive
+     */
+    public TransferResult transferMoney(String numberFrom, String numberTo, int amount) throws SQLException {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be positive: " + amount);
+        }
+        TransferResult result = transaction(connection -> {
+            PreparedStatement debit = connection.prepare("UPDATE accounts SET balance = balance - ? WHERE number = ? AND balance >= ?");
+            debit.setInt(1, amount);
+            debit.setString(2, numberFrom);
+            debit.setInt(3, amount);
+            if (debit.executeUpdate() == 0) {
+                return TransferResult.NOT_ENOUGH_MONEY;
+            }
+            PreparedStatement credit = connection.prepare("UPDATE accounts SET balance = balance + ? WHERE number = ?");
+            credit.setInt(1, amount);
+            credit.setString(2, numberTo);
+            if (credit.executeUpdate() == 0) {
+                connection.connection.rollback();
+                return TransferResult.NO_SUCH_ACCOUNT;
+            }
+            return TransferResult.DONE;
+        });
+        if (result == TransferResult.DONE) {
+            cache.invalidate(numberFrom);
+            cache.invalidate(numberTo);
+        }
+        return result;
+    }
+
+    /**
+     * Changes the PIN of the specific account, storing it hashed.
+     * @param number the account number
+     * @param newPin the new PIN
+     * @throws SQLException if the statement fails
+     */
+    public void changePin(String number, String newPin) throws SQLException {
+        String hashed = credentials.hash(newPin);
+        write(connection -> {
+            PreparedStatement statement = connection.prepare("UPDATE accounts SET pin = ? WHERE number = ?");
+            statement.setString(1, hashed);
+            statement.setString(2, number);
+            return statement.executeUpdate();
+        });
+        cache.updatePin(number, hashed);
+    }
+
+    /**
+     * Deletes the specific account.
+     * It goes around the {@link Ledger}: a group still changing the account fails when it is applied.
+     * @param number the account number
+     * @throws SQLException if the statement fails
+     */
+    public void closeAccount(String number) throws SQLException {
+        write(connection -> {
+            PreparedStatement statement = connection.prepare("DELETE FROM accounts WHERE number = ?");
+            statement.setString(1, number);
+            return statement.executeUpdate();
+        });
+        cache.put(number, AccountCache.MISSING);
+    }
+
+    /**
+     * Checks if the specific account number exists.
+     * @param number the account number
+     * @return {@code true} if the number exists, otherwise {@code false}
+     * @throws SQLException if the query fails
+     */
+    public boolean isInDatabase(String number) throws SQLException {
+        return load(number) != AccountCache.MISSING;
+    }
+
+    /**
+     * Gets the cache of the accounts, for the changes made around the repository to write through it.
+     * @return the cache
+     */
+    AccountCache cache() {
+        return cache;
+    }
+
+    /**
+     * Closes the idle connections and stops the workers hashing the PINs. Connections borrowed at the moment
+     * are closed once they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        credentials.close();
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            discard(connection);
+        }
+    }
+
+    /**
+     * Runs the work with a connection borrowed from the pool and returns the connection afterwards.
+     * A connection which was broken by the work is closed instead of being returned.
+     * @param work the work to run
+     * @param <T> type of the result
+     * @return the result of the work
+     * @throws SQLException if the work fails or no connection can be opened
+     * @throws IllegalStateException if the repository is closed
+     */
+    <T> T execute(Work<T> work) throws SQLException {
+        PooledConnection connection = borrow();
+        try {
+            return work.run(connection);
+        } finally {
+            release(connection);
+        }
+    }
+
+    /**
+     * Runs the work changing the database with a connection borrowed from the pool, after the writes
+     * started before it.
+     * @param work the work to run
+     * @param <T> type of the result
+     * @return the result of the work
+     * @throws SQLException if the work fails or no connection can be opened
+     * @throws IllegalStateException if the repository is closed
+     */
+    <T> T write(Work<T> work) throws SQLException {
+        // the lock is taken before the connection, so that the waiting writes do not hold connections
+        writer.lock();
+        try {
+            return execute(work);
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * Runs the work in one transaction with a connection borrowed from the pool. The transaction is committed
+     * when the work returns and rolled back when it throws. The transaction runs after the writes started before
+     * it. When the database is still busy, e.g. with another process, the transaction is rolled back and tried
+     * again after a random pause growing with every attempt.
+     * @param work the work to run, it may roll the transaction back itself
+     * @param <T> type of the result
+     * @return the result of the work
+     * @throws SQLException if the work fails or the database is still busy after the last attempt
+     * @throws IllegalStateException if the repository is closed
+     */
+    <T> T transaction(Work<T> work) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            writer.lock();
+            PooledConnection connection;
+            try {
+                connection = borrow();
+            } catch (SQLException | RuntimeException e) {
+                writer.unlock();
+                throw e;
+            }
+            try {
+                connection.connection.setAutoCommit(false);
+                T result = work.run(connection);
+                connection.connection.commit();
+                return result;
+            } catch (SQLException e) {
+                rollback(connection);
+                if ((e.getErrorCode() & 0xff) != SQLITE_BUSY || attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                rollback(connection);
+                throw e;
+            } finally {
+                try {
+                    connection.connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    // the connection stays in the transaction and is discarded
+                }
+                release(connection);
+                writer.unlock();
+            }
+            try {
+                Thread.sleep(1 + ThreadLocalRandom.current().nextInt(1 << Math.min(attempt, 6)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a busy database", e);
+            }
+        }
+    }
+
+    /**
+     * Gets the account from the cache, or from the database caching it.
+     */
+    private AccountCache.Entry load(String number) throws SQLException {
+        NumberFilter filter = numbers;
+        if (filter != null && !filter.mightContain(number)) {
+            return AccountCache.MISSING;
+        }
+        AccountCache.Entry entry = cache.get(number);
+        if (entry != null) {
+            return entry;
+        }
+        long version = cache.version(number);
+        entry = execute(connection -> {
+            PreparedStatement statement = connection.prepare("SELECT pin, balance FROM accounts WHERE number = ?");
+            statement.setString(1, number);
+            try (ResultSet set = statement.executeQuery()) {
+                return set.next() ? new AccountCache.Entry(set.getString("pin"), set.getLong("balance")) : AccountCache.MISSING;
+            }
+        });
+        cache.putLoaded(number, entry, version);
+        if (entry == AccountCache.MISSING && filter != null) {
+            filter.falsePositive();
+        }
+        return entry;
+    }
+
+    /**
+     * Adds the number to the filters, before it is inserted, with the writer lock held.
+     */
+    private void addNumber(String number) {
+        NumberFilter filter = numbers;
+        if (filter != null) {
+            filter.add(number);
+        }
+        NumberFilter next = nextNumbers;
+        if (next != null) {
+            next.add(number);
+        }
+    }
+
+    /**
+     * Builds a bigger filter once the inserted accounts fill the current one.
+     */
+    private void growNumbers() {
+        NumberFilter filter = numbers;
+        if (filter != null && filter.count() > filter.capacity()) {
+            try {
+                loadNumbers();
+            } catch (SQLException e) {
+                // the full filter still has no false negatives, it is built again after the next insert
+            }
+        }
+    }
+
+    /**
+     * Rolls back the transaction of the connection, if it fails the connection is discarded on release.
+     */
+    private void rollback(PooledConnection connection) {
+        try {
+            connection.connection.rollback();
+        } catch (SQLException e) {
+            try {
+                connection.connection.close();
+            } catch (SQLException ignored) {
+                // closed anyway
+            }
+        }
+    }
+
+    /**
+     * Takes an idle connection, opens a new one if the pool is not full or waits for one to be returned.
+     */
+    private PooledConnection borrow() throws SQLException {
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("The repository is closed");
+            }
+            PooledConnection connection = idle.poll();
+            if (connection != null) {
+                return connection;
+            }
+            int count = opened.get();
+            if (count < poolSize) {
+                if (opened.compareAndSet(count, count + 1)) {
+                    try {
+                        return new PooledConnection(DriverManager.getConnection(url));
+                    } catch (SQLException | RuntimeException e) {
+                        opened.decrementAndGet();
+                        throw e;
+                    }
+                }
+                continue;
+            }
+            try {
+                connection = idle.poll(BUSY_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            }
+            if (connection != null) {
+                return connection;
+            }
+        }
+    }
+
+    /**
+     * Returns the connection to the pool, or closes it if it is broken or the repository is closed.
+     */
+    private void release(PooledConnection connection) {
+        boolean usable;
+        try {
+            usable = !closed && !connection.connection.isClosed() && connection.connection.getAutoCommit();
+        } catch (SQLException e) {
+            usable = false;
+        }
+        if (!usable || !idle.offer(connection)) {
+            discard(connection);
+        }
+    }
+
+    /**
+     * Closes the connection together with its statements.
+     */
+    private void discard(PooledConnection connection) {
+        opened.decrementAndGet();
+        try {
+            connection.connection.close();
+        } catch (SQLException e) {
+            System.out.println("Failed to close a connection.");
+        }
+    }
+
+    /**
+     * Outcome of a transfer.
+     */
+    public enum TransferResult {
+        DONE,                                                          // the money was transferred
+        NOT_ENOUGH_MONEY,                                              // no source account with the amount on it
+        NO_SUCH_ACCOUNT                                                // one of the accounts does not exist
+    }
+
+    /**
+     * Work done with a borrowed connection.
+     * @param <T> type of the result
+     */
+    @FunctionalInterface
+    interface Work<T> {
+        T run(PooledConnection connection) throws SQLException;
+    }
+
+    /**
+     * Long-lived connection with its cache of prepared statements.
+     */
+    static final class PooledConnection {
+        final Connection connection;                                   // the JDBC connection
+        private final Map<String, PreparedStatement> statements = new HashMap<>(); // prepared statements by SQL
+
+        PooledConnection(Connection connection) throws SQLException {
+            this.connection = connection;
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute("PRAGMA busy_timeout=" + BUSY_TIMEOUT);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Gets the prepared statement for the SQL, preparing it on the first use.
+         * @param sql the statement
+         * @return the prepared statement, with the parameters of its last use
+         * @throws SQLException if the statement cannot be prepared
+         */
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package banking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares AccountRepository against opening a connection for every statement, which is how Bank accessed
+ * the database before. Both run on file-backed databases, the old way on one in the default rollback
+ * journal mode with {@code synchronous=FULL}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountRepositoryBenchmark {
+    @Param({"100", "10000"})
+    private int accounts;
+    private Path directory;                                            // holds both database files
+    private String legacyUrl;                                          // database accessed the old way
+    private AccountRepository repository;                              // database accessed by the repository
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("bank");
+        String legacy = directory.resolve("legacy.db").toString();
+        legacyUrl = "jdbc:sqlite:" + legacy;
+        repository = new AccountRepository(directory.resolve("pooled.db").toString());
+        repository.migrate(false);
+        try (AccountRepository loader = new AccountRepository(legacy)) {
+            loader.migrate(false);
+        }
+        // the loader switched the file to WAL, the old way used the rollback journal
+        try (Connection connection = DriverManager.getConnection(legacyUrl)) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=DELETE");
+            }
+            fill(connection, accounts);
+        }
+        repository.execute(connection -> {
+            fill(connection.connection, accounts);
+            return null;
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public int balanceConnectPerCall() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(legacyUrl);
+             PreparedStatement statement = connection.prepareStatement("SELECT balance FROM accounts WHERE number = ?")) {
+            statement.setString(1, number());
+            ResultSet set = statement.executeQuery();
+            return set.next() ? set.getInt("balance") : -1;
+        }
+    }
+
+    @Benchmark
+    public int balancePooled() throws SQLException {
+        return repository.balance(number());
+    }
+
+    @Benchmark
+    public int addMoneyConnectPerCall() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(legacyUrl);
+             PreparedStatement statement = connection.prepareStatement("UPDATE accounts SET balance = balance + ? WHERE number = ?")) {
+            statement.setInt(1, 1);
+            statement.setString(2, number());
+            return statement.executeUpdate();
+        }
+    }
+
+    @Benchmark
+    public void addMoneyPooled() throws SQLException {
+        repository.addMoney(number(), 1);
+    }
+
+    /**
+     * Inserts the accounts, numbered from 0, in one transaction.
+     * @param connection the connection to the database
+     * @param accounts the number of accounts
+     * @throws SQLException if the inserts fail
+     */
+    static void fill(Connection connection, int accounts) throws SQLException {
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO accounts(number, pin) VALUES(?,?)")) {
+            for (int i = 0; i < accounts; i++) {
+                statement.setString(1, number(i));
+                statement.setString(2, "0000");
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    /**
+     * Picks the number of a random existing account.
+     */
+    private String number() {
+        return number(ThreadLocalRandom.current().nextInt(accounts));
+    }
+
+    /**
+     * Makes the card number of the i-th account inserted by {@link #fill}.
+     * @param i the index of the account
+     * @return the card number
+     */
+    static String number(int i) {
+        return String.format("400000%010d", i);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AccountRepositoryBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
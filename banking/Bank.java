@@ -1,12 +1,13 @@
 package banking;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.Scanner;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Class for managing the accounts and operations with them.
@@ -15,13 +16,55 @@ public class Bank {
     private static final StringBuilder LOGGED_MENU = new StringBuilder(); // menu shown after logging
     private static final StringBuilder MAIN_MENU = new StringBuilder();   // main menu
     private static final Scanner SCANNER = new Scanner(System.in);        // for user input
-    private static String db;                                             // database string
+    private static AccountRepository repository;                          // pooled access to the database
+    private static Ledger ledger;                                         // journaled balance changes
 
     public static void main(String[] args) {
-        db = (args.length == 2 && args[0].equals("-fileName")) ? args[1]
-                                                               : "test.db";
-        createTable();
-        showMenu();
+        String db = "test.db";
+        boolean compactNumbers = false;
+        String provision = null;
+        String output = "cards.csv";
+        boolean server = false;
+        int port = BankServer.DEFAULT_PORT;
+        int cacheSize = AccountCache.DEFAULT_CAPACITY;
+        int pinIterations = Credentials.DEFAULT_ITERATIONS;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-fileName") && i + 1 < args.length)
+                db = args[++i];
+            else if (args[i].equals("-compactNumbers"))
+                compactNumbers = true;
+            else if (args[i].equals("-provision") && i + 1 < args.length)
+                provision = args[++i];
+            else if (args[i].equals("-output") && i + 1 < args.length)
+                output = args[++i];
+            else if (args[i].equals("-server"))
+                server = true;
+            else if (args[i].equals("-port") && i + 1 < args.length)
+                port = parseOption(args[i], args[++i], 0, 65_535);
+            else if (args[i].equals("-cacheSize") && i + 1 < args.length)
+                cacheSize = parseOption(args[i], args[++i], 0, Integer.MAX_VALUE);
+            else if (args[i].equals("-pinIterations") && i + 1 < args.length)
+                pinIterations = parseOption(args[i], args[++i], 1, Integer.MAX_VALUE);
+        }
+        if (port < 0 || cacheSize < 0 || pinIterations < 0)
+            return;
+        repository = new AccountRepository(db, server ? BankServer.POOL_SIZE : AccountRepository.DEFAULT_POOL_SIZE,
+                cacheSize, pinIterations);
+        if (!migrate(compactNumbers) || !openLedger(db)) {
+            repository.close();
+            return;
+        }
+        if (provision != null) {
+            provision(provision, output);
+        } else {
+            hashPins();
+            loadNumbers(server);
+            if (server)
+                serve(port);
+            else
+                showMenu();
+        }
+        shutdown();
     }
 
     /*
@@ -80,21 +123,103 @@ public class Bank {
         return input;
     }
 
+    /**
+     * Parses the value of a numeric command line option.
+     * @param option the option
+     * @param value the value given to the option
+     * @param from the lower bound
+     * @param to the upper bound
+     * @return the number, or -1 after reporting a value which is not a whole number within the bounds
+     */
+    private static int parseOption(String option, String value, int from, int to) {
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.out.printf("Enter a whole number for %s.\n", option);
+            return -1;
+        }
+        if (number < from || number > to) {
+            System.out.printf("Valid range for %s is from %d to %d.\n", option, from, to);
+            return -1;
+        }
+        return number;
+    }
+
     /**
      * Creates an account with random account number and PIN. Fails in case the account number already exists.
      */
     private static void createAccount() {
-        StringBuilder number = rng(new StringBuilder("400000"), 9);
-        StringBuilder pin = rng(new StringBuilder(), 4);
-        number.append(calculateChecksum(number));
-        if (isInDatabase(number.toString())) {
+        String number = newNumber();
+        String pin = newPin();
+        if (isInDatabase(number)) {
             System.out.println("Something's wrong, please try again.");
             return;
         }
         System.out.println("\nYour card has been created.");
         System.out.printf("Your card number:\n%s\n", number);
         System.out.printf("Your card PIN:\n%s\n", pin);
-        insert(number.toString(), pin.toString());
+        insert(number, pin);
+    }
+
+    /**
+     * Generates a random account number with the checksum digit.
+     * @return the account number
+     */
+    static String newNumber() {
+        StringBuilder number = rng(new StringBuilder("400000"), 9);
+        return number.append(calculateChecksum(number)).toString();
+    }
+
+    /**
+     * Generates a random PIN.
+     * @return the PIN
+     */
+    static String newPin() {
+        return rng(new StringBuilder(), 4).toString();
+    }
+
+    /**
+     * Creates many accounts at once instead of showing the menu and writes their numbers and PINs to a file.
+     * @param count the number of accounts to create
+     * @param output the file to write the numbers and PINs to
+     */
+    private static void provision(String count, String output) {
+        int accounts = parseOption("-provision", count, 0, Integer.MAX_VALUE);
+        if (accounts < 0)
+            return;
+        long start = System.nanoTime();
+        try (Writer writer = Files.newBufferedWriter(Path.of(output))) {
+            int created = Provisioning.provision(repository, accounts, writer);
+            System.out.printf("%d cards have been created in %d ms, their numbers and PINs are in %s.\n",
+                    created, (System.nanoTime() - start) / 1_000_000, output);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Failed to write the cards.");
+        } catch (SQLException e) {
+            System.out.println("Failed to insert data.");
+        }
+    }
+
+    /**
+     * Serves the sessions over a local socket instead of showing the menu, until the process is stopped.
+     * @param port the port to listen on
+     */
+    private static void serve(int port) {
+        try {
+            BankServer bankServer = new BankServer(repository, ledger, port);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                bankServer.close();
+                ledger.close();
+                System.out.println("Account cache: " + repository.cache().stats());
+                System.out.println("Number filter: " + repository.numbersStats());
+            }));
+            System.out.printf("Listening on port %d.\n", bankServer.port());
+            bankServer.serve();
+        } catch (IOException e) {
+            System.out.printf("Failed to listen on port %d.\n", port);
+        }
     }
 
     /**
@@ -104,56 +229,92 @@ public class Bank {
      * @return StringBuilder object with the digits appended
      */
     private static StringBuilder rng(StringBuilder builder, int length) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
         for (int i = 0; i < length; i++)
-            builder.append((int) (Math.random() * 10));
+            builder.append(random.nextInt(10));
         return builder;
     }
 
     /**
-     * Connects to the database and returns the Connection object.
-     * @return the Connection object
+     * Creates the accounts table or upgrades the schema of an existing database.
+     * @param compactNumbers {@code true} to store the card numbers as integers
+     * @return {@code true} if the database is ready, otherwise {@code false}
      */
-    private static Connection connect() {
-        String url = "jdbc:sqlite:" + db;
-        Connection connection = null;
+    private static boolean migrate(boolean compactNumbers) {
         try {
-            connection = DriverManager.getConnection(url);
+            repository.migrate(compactNumbers);
+            return true;
         } catch (SQLException e) {
-            System.out.println("Failed to connect to a database.");
+            System.out.println("Failed to upgrade the database: " + e.getMessage());
+            return false;
         }
-        return connection;
     }
 
     /**
-     * Creates the accounts table, in case it does not yet exists.
+     * Hashes the PINs left in plain text by the versions before the PINs were hashed, on a background thread,
+     * so that the sessions start at once. A PIN still in plain text is hashed by the first login with it anyway.
+     */
+    private static void hashPins() {
+        Thread thread = new Thread(() -> {
+            try {
+                int hashed = repository.hashPins(true);
+                if (hashed > 0)
+                    System.out.printf("Hashed %d PINs stored in plain text.\n", hashed);
+            } catch (SQLException e) {
+                System.out.println("Failed to hash the PINs: " + e.getMessage());
+            } catch (IllegalStateException | RejectedExecutionException e) {
+                // the repository was closed meanwhile, the rest is hashed on the next start
+            }
+        }, "pin-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Opens the ledger of the balance changes next to the database, applying the changes left in its journal.
+     * @param db the database file
+     * @return {@code true} if the ledger is ready, otherwise {@code false}
      */
-    private static void createTable() {
-        String create = "CREATE TABLE IF NOT EXISTS accounts (\n" +
-                "        id INTEGER PRIMARY KEY,\n" +
-                "        number TEXT,\n" +
-                "        pin TEXT,\n" +
-                "        balance INTEGER DEFAULT 0\n" +
-                ");";
-        try (Connection connection = connect();
-             Statement statement = connection.createStatement()) {
-            statement.execute(create);
+    private static boolean openLedger(String db) {
+        try {
+            ledger = new Ledger(repository, Path.of(db + ".journal"));
+            return true;
+        } catch (IOException | SQLException e) {
+            System.out.println("Failed to replay the journal: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Loads the filter of the card numbers, without it every lookup of a number queries the database.
+     * @param report {@code true} to print the size of the filter
+     */
+    private static void loadNumbers(boolean report) {
+        try {
+            repository.loadNumbers();
+            if (report)
+                System.out.println("Number filter: " + repository.numbersStats());
         } catch (SQLException e) {
-            System.out.println("Failed to create a table.");
+            System.out.println("Failed to load the card numbers: " + e.getMessage());
         }
     }
 
+    /**
+     * Applies the pending balance changes and closes the database.
+     */
+    private static void shutdown() {
+        ledger.close();
+        repository.close();
+    }
+
     /**
      * Adds the new account to the table with the specific number and pin.
      * @param number the account number
      * @param pin the pin to log in with
      */
     private static void insert(String number, String pin) {
-        String insert = "INSERT INTO accounts(number, pin) VALUES(?,?)";
-        try (Connection connection = connect();
-             PreparedStatement statement = connection.prepareStatement(insert)) {
-            statement.setString(1, number);
-            statement.setString(2, pin);
-            statement.executeUpdate();
+        try {
+            repository.insert(number, pin);
         } catch (SQLException e) {
             System.out.println("Failed to insert data.");
         }
@@ -164,7 +325,7 @@ public class Bank {
      * @param number the account number to calculate the checksum for
      * @return the checksum digit
      */
-    private static int calculateChecksum(StringBuilder number) {
+    static int calculateChecksum(StringBuilder number) {
         int sum = 0;
         for (int i = 0; i < number.length(); i++) {
             int digit = number.charAt(i) - 48;
@@ -187,7 +348,10 @@ public class Bank {
         System.out.println("Enter your PIN:");
         String pin = SCANNER.nextLine();
         String account = validateLogin(number, pin);
-        if (account.isEmpty())
+        long retryAfter = account.isEmpty() ? repository.retryAfter(number) : 0;
+        if (retryAfter > 0)
+            System.out.printf("\nToo many failed attempts, try again in %d s.\n", (retryAfter + 999) / 1000);
+        else if (account.isEmpty())
             System.out.println("\nWrong card number or PIN.");
         else
             loggedIn(account);
@@ -200,15 +364,9 @@ public class Bank {
      * @return the account number if input values were correct, otherwise an empty String.
      */
     private static String validateLogin(String number, String pin) {
-        String select = "SELECT number FROM accounts WHERE number = ? AND pin = ?";
         String check = "";
-        try (Connection connection = connect();
-             PreparedStatement statement = connection.prepareStatement(select)) {
-            statement.setString(1, number);
-            statement.setString(2, pin);
-            ResultSet set = statement.executeQuery();
-            if (set.next())
-                check = set.getString("number");
+        try {
+            check = repository.validateLogin(number, pin);
         } catch (SQLException e) {
             System.out.println("Failed to validate login.");
         }
@@ -235,7 +393,7 @@ public class Bank {
                     System.out.println("Money were added.");
                     break;
                 case 3:
-                    validateTransfer(account, balance(account));
+                    validateTransfer(account);
                     break;
                 case 4:
                     validateNewPin(account);
@@ -248,6 +406,7 @@ public class Bank {
                     break loop;
                 case 0:
                     System.out.println("\nBye.");
+                    shutdown();
                     System.exit(0);
             }
         }
@@ -259,14 +418,9 @@ public class Bank {
      * @return the balance
      */
     private static int balance(String number) {
-        String select = "SELECT balance FROM accounts WHERE number = ?";
         int balance = -1;
-        try (Connection connection = connect();
-             PreparedStatement statement = connection.prepareStatement(select)) {
-            statement.setString(1, number);
-            ResultSet set = statement.executeQuery();
-            if (set.next())
-                balance = set.getInt("balance");
+        try {
+            balance = repository.balance(number);
         } catch (SQLException e) {
             System.out.println("Failed querying balance.");
         }
@@ -279,12 +433,8 @@ public class Bank {
      * @param amount the amount of money to be added
      */
     private static void addMoney(String number, int amount) {
-        String update = "UPDATE accounts SET balance = balance + ? WHERE number = ?";
-        try (Connection connection = connect();
-             PreparedStatement statement = connection.prepareStatement(update)) {
-            statement.setInt(1, amount);
-            statement.setString(2, number);
-            statement.executeUpdate();
+        try {
+            Ledger.await(ledger.deposit(number, amount));
         } catch (SQLException e) {
             System.out.println("Failed adding money.");
         }
@@ -292,53 +442,65 @@ public class Bank {
 
     /**
      * Checks if the money can be transferred to the specific account.
+     * The balance is checked by the transfer itself.
      * @param numberFrom the account from which the money will be transferred
-     * @param balance the balance on that account
      */
-    private static void validateTransfer(String numberFrom, int balance) {
+    private static void validateTransfer(String numberFrom) {
         System.out.println("\nTransfer");
         System.out.println("Enter card number:");
         String numberTo = SCANNER.nextLine();
-        if (numberTo.length() != 16) {
-            System.out.println("Only 16 digit numbers allowed.");
-            return;
-        }
-        StringBuilder check = new StringBuilder(numberTo).deleteCharAt(numberTo.length() - 1);
-        int checksum = calculateChecksum(check);
-        if (numberFrom.equals(numberTo)) {
-            System.out.println("You can't transfer money to the same account.");
-        } else if (checksum != numberTo.charAt(15) - 48) {
-            System.out.println("You have probably made a mistake in the card number. Please try again.");
+        String error = checkTransferTarget(numberFrom, numberTo);
+        if (error != null) {
+            System.out.println(error);
         } else if (!isInDatabase(numberTo)) {
             System.out.println("Such a card does not exist.");
         } else {
             System.out.println("Enter how much money you want to transfer:");
             int amount = validateInput(1, Integer.MAX_VALUE);
-            if (amount > balance)
-                System.out.println("Not enough money.");
-            else
-                transferMoney(numberFrom, numberTo, amount);
+            transferMoney(numberFrom, numberTo, amount);
         }
     }
 
     /**
-     * Transfers the money from one account to another.
+     * Checks the number of the account to transfer the money to, without looking it up.
+     * @param numberFrom the account from which the money will be transferred
+     * @param numberTo the account the money will transfer to
+     * @return the message describing what is wrong with the number, {@code null} if it is valid
+     */
+    static String checkTransferTarget(String numberFrom, String numberTo) {
+        if (numberTo.length() != 16)
+            return "Only 16 digit numbers allowed.";
+        StringBuilder check = new StringBuilder(numberTo).deleteCharAt(numberTo.length() - 1);
+        int checksum = calculateChecksum(check);
+        if (numberFrom.equals(numberTo))
+            return "You can't transfer money to the same account.";
+        if (checksum != numberTo.charAt(15) - 48)
+            return "You have probably made a mistake in the card number. Please try again.";
+        return null;
+    }
+
+    /**
+     * Transfers the money from one account to another through the ledger.
      * @param numberFrom the account from which the money will be transferred
      * @param numberTo the account the money will transfer to
      * @param amount the amount of money to transfer
      */
     private static void transferMoney(String numberFrom, String numberTo, int amount) {
-        String update = "UPDATE accounts SET balance = balance - ? WHERE number = ?";
-        try (Connection connection = connect();
-             PreparedStatement statement = connection.prepareStatement(update)) {
-            statement.setInt(1, amount);
-            statement.setString(2, numberFrom);
-            statement.executeUpdate();
-            System.out.println("Money successfully transferred.");
+        try {
+            switch (Ledger.await(ledger.transfer(numberFrom, numberTo, amount))) {
+                case DONE:
+                    System.out.println("Money successfully transferred.");
+                    break;
+                case NOT_ENOUGH_MONEY:
+                    System.out.println("Not enough money.");
+                    break;
+                case NO_SUCH_ACCOUNT:
+                    System.out.println("Such a card does not exist.");
+                    break;
+            }
         } catch (SQLException e) {
             System.out.println("Failed transferring money.");
         }
-        addMoney(numberTo, amount);
     }
 
     /**
@@ -348,17 +510,11 @@ public class Bank {
     private static void validateNewPin(String number) {
         System.out.println("\nEnter new 4 digit PIN:");
         String newPin1 = SCANNER.nextLine();
-        if (newPin1.length() != 4) {
-            System.out.println("Wrong length.");
+        String error = checkPin(newPin1);
+        if (error != null) {
+            System.out.println(error);
             return;
         }
-        char[] parts = newPin1.toCharArray();
-        for (char c : parts) {
-            if (c < 48 || c > 57) {
-                System.out.println("Only digits 0-9 allowed.");
-                return;
-            }
-        }
         System.out.println("Enter new PIN again:");
         String newPin2 = SCANNER.nextLine();
         if (newPin1.equals(newPin2))
@@ -367,18 +523,30 @@ public class Bank {
             System.out.println("PINs don't match.");
     }
 
+    /**
+     * Checks that the PIN has 4 digits.
+     * @param pin the PIN to check
+     * @return the message describing what is wrong with the PIN, {@code null} if it is valid
+     */
+    static String checkPin(String pin) {
+        if (pin.length() != 4)
+            return "Wrong length.";
+        char[] parts = pin.toCharArray();
+        for (char c : parts) {
+            if (c < 48 || c > 57)
+                return "Only digits 0-9 allowed.";
+        }
+        return null;
+    }
+
     /**
      * Changes the PIN for the specific account.
      * @param number the account to change the PIN for
      * @param newPin the new PIN to be set
      */
     private static void changePin(String number, String newPin) {
-        String update = "UPDATE accounts SET pin = ? WHERE number = ?";
-        try (Connection connection = connect();
-             PreparedStatement statement = connection.prepareStatement(update)) {
-            statement.setString(1, newPin);
-            statement.setString(2, number);
-            statement.executeUpdate();
+        try {
+            repository.changePin(number, newPin);
             System.out.println("PIN has been changed.");
         } catch (SQLException e) {
             System.out.println("Failed to change PIN.");
@@ -390,11 +558,8 @@ public class Bank {
      * @param number the account number to close
      */
     private static void closeAccount(String number) {
-        String delete = "DELETE FROM accounts WHERE number = ?";
-        try (Connection connection = connect();
-             PreparedStatement statement = connection.prepareStatement(delete)) {
-            statement.setString(1, number);
-            statement.executeUpdate();
+        try {
+            Ledger.await(ledger.closeAccount(number));
             System.out.println("\nThe account has been closed.");
         } catch (SQLException e) {
             System.out.println("Failed to close account.");
@@ -407,15 +572,8 @@ public class Bank {
      * @return {@code true} if the number exists, otherwise {@code false}
      */
     private static boolean isInDatabase(String number) {
-        String select = "SELECT number FROM accounts WHERE number = ?";
-        try (Connection connection = connect();
-             PreparedStatement statement = connection.prepareStatement(select)) {
-            statement.setString(1, number);
-            ResultSet set = statement.executeQuery();
-            String account = "";
-            if (set.next())
-                account = set.getString("number");
-            return account.equals(number);
+        try {
+            return repository.isInDatabase(number);
         } catch (SQLException e) {
             System.out.println("Failed querying database.");
             return false;
@@ -0,0 +1,129 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load generator for BankServer. It opens all the client sessions first, every one creates an account
+ * and logs into it, then all of them start at once and send deposits and balance queries, waiting for every
+ * response before sending the next request. At the end it prints the throughput and the latencies.
+ * <p>
+ * Usage: {@code BankLoadClient [-host localhost] [-port 8189] [-clients 1000] [-requests 100]}
+ */
+final class BankLoadClient {
+    private BankLoadClient() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String host = "localhost";
+        int port = BankServer.DEFAULT_PORT;
+        int clients = 1000;
+        int requests = 100;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "-host" -> host = args[i + 1];
+                case "-port" -> port = Integer.parseInt(args[i + 1]);
+                case "-clients" -> clients = Integer.parseInt(args[i + 1]);
+                case "-requests" -> requests = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        long[][] latencies = new long[clients][];
+        CountDownLatch ready = new CountDownLatch(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = BankServer.newThreadPerTaskExecutor();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            String address = host;
+            int serverPort = port;
+            int count = requests;
+            executor.execute(() -> {
+                try {
+                    latencies[client] = session(address, serverPort, count, ready, start);
+                } catch (IOException | RuntimeException e) {
+                    failed.incrementAndGet();
+                }
+            });
+        }
+        ready.await();
+        System.out.printf("%d sessions open, %d failed%n", clients - failed.get(), failed.get());
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.HOURS);
+        long elapsed = System.nanoTime() - begin;
+        long[] all = Arrays.stream(latencies).filter(l -> l != null).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%d requests in %d ms, %.0f requests/s, %d sessions failed%n",
+                all.length, elapsed / 1_000_000, all.length * 1e9 / elapsed, failed.get());
+        if (all.length > 0) {
+            System.out.printf("latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n", all[all.length / 2] / 1e6,
+                    all[(int) (all.length * 0.99)] / 1e6, all[all.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Runs one client session.
+     * @return the latencies of the requests after the start, in nanoseconds
+     */
+    private static long[] session(String host, int port, int requests, CountDownLatch ready, CountDownLatch start)
+            throws IOException {
+        Socket socket;
+        try {
+            socket = new Socket(host, port);
+        } catch (IOException e) {
+            ready.countDown();
+            throw e;
+        }
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            try {
+                String[] card = request(in, out, "CREATE").split(" ");
+                request(in, out, "LOGIN " + card[1] + " " + card[2]);
+            } finally {
+                ready.countDown();
+            }
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted before the start", e);
+            }
+            long[] latencies = new long[requests];
+            for (int i = 0; i < requests; i++) {
+                long begin = System.nanoTime();
+                request(in, out, i % 2 == 0 ? "DEPOSIT 1" : "BALANCE");
+                latencies[i] = System.nanoTime() - begin;
+            }
+            request(in, out, "QUIT");
+            return latencies;
+        }
+    }
+
+    /**
+     * Sends the request and reads the response.
+     * @throws IOException if the connection fails or the response is an error
+     */
+    private static String request(BufferedReader in, BufferedWriter out, String request) throws IOException {
+        out.write(request);
+        out.write('\n');
+        out.flush();
+        String response = in.readLine();
+        if (response == null || !response.startsWith("OK")) {
+            throw new IOException(request + ": " + response);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,307 @@
+package banking;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server mode of the bank, serving many sessions at once over a local socket. Every session runs on its own
+ * thread, a virtual thread where the runtime has them, and all the sessions share one AccountRepository
+ * and one Ledger, which commits the balance changes of many sessions together.
+ * <p>
+ * The protocol is line based: every request is one line with a command and its arguments separated by spaces,
+ * every response is one line starting with {@code OK} or {@code ERR} followed by the result or the message.
+ * <pre>
+ * CREATE                    OK number pin
+ * LOGIN number pin          OK
+ * BALANCE                   OK balance
+ * DEPOSIT amount            OK
+ * TRANSFER number amount    OK
+ * PIN newPin                OK
+ * CLOSE                     OK, closes the account and logs out
+ * LOGOUT                    OK
+ * QUIT                      OK, ends the session
+ * STATS                     OK open sessions, use of the account cache and the number filter
+ * </pre>
+ * The commands after LOGIN work with the logged account until LOGOUT or CLOSE. The PINs are verified
+ * on the workers of {@link Credentials}, so a session only waits for its hash and the sessions never compute
+ * more hashes at once than there are processors.
+ */
+final class BankServer implements AutoCloseable {
+    static final int DEFAULT_PORT = 8189;                              // port the server listens on by default
+    static final int POOL_SIZE = 16;                                   // connections shared by the sessions
+    private static final int BACKLOG = 4096;                           // connections waiting to be accepted
+    private static final int IDLE_TIMEOUT = 300_000;                   // ms a session may wait for a request
+    private static final String BYE = "OK Bye.";                       // response ending the session
+    private final AccountRepository repository;                        // shared by all the sessions
+    private final Ledger ledger;                                       // changes the balances
+    private final ServerSocket serverSocket;                           // accepts the sessions
+    private final ExecutorService sessions;                            // runs the sessions
+    private final AtomicInteger active = new AtomicInteger();          // number of open sessions
+
+    /**
+     * Creates the server listening on the loopback address.
+     * @param repository the accounts database
+     * @param ledger the ledger of the balance changes
+     * @param port the port to listen on, 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    BankServer(AccountRepository repository, Ledger ledger, int port) throws IOException {
+        this.repository = repository;
+        this.ledger = ledger;
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        this.sessions = newThreadPerTaskExecutor();
+    }
+
+    /**
+     * Creates the executor running every task on a new virtual thread. Virtual threads are looked up
+     * by reflection, so that the server runs also on the runtimes without them, with a cached pool
+     * of platform threads instead.
+     * @return the executor
+     */
+    static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Gets the port the server listens on.
+     * @return the port
+     */
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of open sessions.
+     * @return the number of sessions
+     */
+    int activeSessions() {
+        return active.get();
+    }
+
+    /**
+     * Accepts the sessions until the server is closed.
+     */
+    void serve() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.out.println("Failed to accept a connection.");
+                }
+                continue;
+            }
+            try {
+                sessions.execute(new Session(socket));
+            } catch (RuntimeException e) {
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting new sessions and waits a moment for the open ones to end.
+     */
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.out.println("Failed to close the server.");
+        }
+        sessions.shutdown();
+        try {
+            sessions.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // nothing more to do with it
+        }
+    }
+
+    /**
+     * One client connection with its logged account.
+     */
+    private final class Session implements Runnable {
+        private final Socket socket;                                   // connection to the client
+        private String account;                                        // logged account, null if none
+
+        Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            active.incrementAndGet();
+            try (socket;
+                 BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                 BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+                // every request waits for its response, so the responses must not wait for more data
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(IDLE_TIMEOUT);
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String response = respond(line.trim().split(" +"));
+                    out.write(response);
+                    out.write('\n');
+                    out.flush();
+                    if (BYE.equals(response)) {
+                        break;
+                    }
+                }
+            } catch (SocketTimeoutException e) {
+                // idle client, the connection is closed
+            } catch (IOException e) {
+                // the client went away
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        /**
+         * Runs the request and makes the response.
+         */
+        private String respond(String[] request) {
+            String command = request[0].toUpperCase();
+            try {
+                switch (command) {
+                    case "CREATE":
+                        return create();
+                    case "LOGIN":
+                        if (request.length != 3) {
+                            return "ERR Usage: LOGIN number pin";
+                        }
+                        String number = repository.validateLogin(request[1], request[2]);
+                        if (number.isEmpty()) {
+                            long retryAfter = repository.retryAfter(request[1]);
+                            return retryAfter > 0
+                                    ? String.format("ERR Too many failed attempts, try again in %d s.", (retryAfter + 999) / 1000)
+                                    : "ERR Wrong card number or PIN.";
+                        }
+                        account = number;
+                        return "OK";
+                    case "QUIT":
+                        return BYE;
+                    case "STATS":
+                        return "OK sessions " + activeSessions() + "; cache " + repository.cache().stats()
+                                + "; filter " + repository.numbersStats();
+                    default:
+                        break;
+                }
+                if (account == null) {
+                    return "ERR Log into account first.";
+                }
+                switch (command) {
+                    case "BALANCE":
+                        return "OK " + repository.balance(account);
+                    case "DEPOSIT":
+                        int amount = amount(request, 1, 2);
+                        if (amount <= 0) {
+                            return "ERR Usage: DEPOSIT amount";
+                        }
+                        return Ledger.await(ledger.deposit(account, amount)) == AccountRepository.TransferResult.DONE
+                                ? "OK" : "ERR Such a card does not exist.";
+                    case "TRANSFER":
+                        return transfer(request);
+                    case "PIN":
+                        if (request.length != 2) {
+                            return "ERR Usage: PIN newPin";
+                        }
+                        String error = Bank.checkPin(request[1]);
+                        if (error != null) {
+                            return "ERR " + error;
+                        }
+                        repository.changePin(account, request[1]);
+                        return "OK";
+                    case "CLOSE":
+                        Ledger.await(ledger.closeAccount(account));
+                        account = null;
+                        return "OK";
+                    case "LOGOUT":
+                        account = null;
+                        return "OK";
+                    default:
+                        return "ERR Unknown command " + command;
+                }
+            } catch (SQLException e) {
+                return "ERR Failed querying database.";
+            }
+        }
+
+        /**
+         * Creates an account with random account number and PIN.
+         */
+        private String create() throws SQLException {
+            String number = Bank.newNumber();
+            String pin = Bank.newPin();
+            if (repository.isInDatabase(number)) {
+                return "ERR Something's wrong, please try again.";
+            }
+            repository.insert(number, pin);
+            return "OK " + number + " " + pin;
+        }
+
+        /**
+         * Transfers the money from the logged account.
+         */
+        private String transfer(String[] request) throws SQLException {
+            int amount = amount(request, 2, 3);
+            if (amount <= 0) {
+                return "ERR Usage: TRANSFER number amount";
+            }
+            String error = Bank.checkTransferTarget(account, request[1]);
+            if (error != null) {
+                return "ERR " + error;
+            }
+            switch (Ledger.await(ledger.transfer(account, request[1], amount))) {
+                case DONE:
+                    return "OK";
+                case NOT_ENOUGH_MONEY:
+                    return "ERR Not enough money.";
+                default:
+                    return "ERR Such a card does not exist.";
+            }
+        }
+
+        /**
+         * Parses the amount at the index of a request of the length, -1 if it is missing or not a whole number.
+         */
+        private int amount(String[] request, int index, int length) {
+            if (request.length != length) {
+                return -1;
+            }
+            try {
+                return Integer.parseInt(request[index]);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package banking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the lookups of 1M indexed accounts without the account cache and with caches of several sizes.
+ * The lookups are skewed the way the sessions use the accounts: 90% of them go to 1% of the accounts.
+ * The hit rate of every cache is printed after each iteration. The PINs are hashed with a single iteration,
+ * so that the logins measure the cache rather than the hashing, which LoginBenchmark measures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class CacheBenchmark {
+    private static final int ACCOUNTS = 1_000_000;                     // accounts in the database
+    private static final int HOT = ACCOUNTS / 100;                     // accounts getting most of the lookups
+    @Param({"0", "10000", "100000"})
+    private int cacheSize;
+    private Path directory;                                            // holds the database file
+    private AccountRepository repository;                              // the database
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("bank");
+        repository = new AccountRepository(directory.resolve("cache.db").toString(), AccountRepository.DEFAULT_POOL_SIZE,
+                cacheSize, 1);
+        repository.transaction(connection -> {
+            Migrations.migrate(connection.connection, Migrations.ACCOUNTS_TABLE);
+            return null;
+        });
+        repository.execute(connection -> {
+            AccountRepositoryBenchmark.fill(connection.connection, ACCOUNTS);
+            return null;
+        });
+        repository.migrate(false);
+        repository.hashPins(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStats() {
+        System.out.println("\nAccount cache: " + repository.cache().stats());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public int balance() throws SQLException {
+        return repository.balance(number());
+    }
+
+    @Benchmark
+    public String login() throws SQLException {
+        return repository.validateLogin(number(), "0000");
+    }
+
+    /**
+     * Picks the number of an account, one of the hot accounts 9 times out of 10.
+     */
+    private static String number() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return AccountRepositoryBenchmark.number(random.nextInt(10) < 9 ? random.nextInt(HOT) : random.nextInt(ACCOUNTS));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,364 @@
+package banking;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashing and verification of the PINs. A PIN is stored as {@code pbkdf2$iterations$salt$hash}, PBKDF2 with
+ * HMAC-SHA256 over the PIN and a random salt of its own, where the number of iterations is the work factor.
+ * <p>
+ * The hashing is deliberately slow, so it runs on a fixed pool of worker threads, one per processor, and
+ * the callers only wait for it: however many sessions log in at once, at most that many hashes are computed
+ * and the rest wait in a bounded queue, further callers wait for a place in it. A successful verification is
+ * remembered for a minute, as a fast keyed digest of the PIN, so repeated logins do not hash again.
+ * <p>
+ * Every card being tried has a counter packing the number of failures, the number of attempts in flight and
+ * the time until which the card is locked in one AtomicLong, updated by compare-and-set. An attempt is reserved
+ * on the counter before the PIN is hashed and refused without hashing if the card is locked or the attempts
+ * in flight would use up the free ones, so sessions trying a card in parallel get no more guesses than one
+ * session trying it in turn. After {@link #FREE_ATTEMPTS} failures every further one locks the card for twice
+ * as long as the one before, up to 15 minutes, and only one attempt at a time is let through once the lock
+ * ends. A successful login clears the counter.
+ */
+final class Credentials implements AutoCloseable {
+    static final int DEFAULT_ITERATIONS = 100_000;                     // work factor of the new hashes by default
+    static final int FREE_ATTEMPTS = 3;                                // failures before the card gets locked
+    private static final String PREFIX = "pbkdf2$";                    // start of a hashed PIN, see hashPins too
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";    // key derivation function
+    private static final int SALT_BYTES = 16;                          // length of a salt
+    private static final int HASH_BITS = 256;                          // length of a hash
+    private static final int QUEUE_SIZE = 1024;                        // hashes waiting for a worker
+    private static final long REMEMBER_TIME = 60_000;                  // ms a successful verification is kept
+    private static final int MAX_REMEMBERED = 100_000;                 // verifications kept at most
+    private static final long BASE_DELAY = 1_000;                      // ms of the first lock
+    private static final long MAX_DELAY = 15 * 60_000;                 // ms of the longest lock
+    private static final int TIME_BITS = 48;                           // of a counter, for the end of the lock
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final long PENDING = 1L << TIME_BITS;               // one attempt in flight, in the next 4 bits
+    private static final long PENDING_MASK = 0xfL;
+    private static final int COUNT_SHIFT = TIME_BITS + 4;              // of the failures, in the top 12 bits
+    private static final long MAX_COUNT = (1L << Long.SIZE - COUNT_SHIFT) - 1;
+    private final int iterations;                                      // work factor of the new hashes
+    private final ThreadPoolExecutor workers;                          // compute the hashes
+    private final SecureRandom random = new SecureRandom();            // makes the salts
+    private final byte[] key = new byte[32];                           // keys the digests of remembered PINs
+    private final ConcurrentHashMap<String, Verified> remembered = new ConcurrentHashMap<>(); // by card number
+    private final ConcurrentHashMap<String, AtomicLong> failures = new ConcurrentHashMap<>(); // by card number
+
+    /**
+     * Creates the credentials with one worker per processor.
+     * @param iterations the work factor of the new hashes
+     * @throws IllegalArgumentException if the work factor is not positive
+     */
+    Credentials(int iterations) {
+        this(iterations, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates the credentials.
+     * @param iterations the work factor of the new hashes
+     * @param threads the number of workers, started when needed and stopped when idle
+     * @throws IllegalArgumentException if the work factor or the number of workers is not positive
+     */
+    Credentials(int iterations, int threads) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive: " + iterations);
+        }
+        this.iterations = iterations;
+        AtomicInteger created = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE),
+                task -> {
+                    Thread thread = new Thread(task, "pin-hash-" + created.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, executor) -> {
+                    // the queue is full, the caller waits for a place instead of hashing on its own thread
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("The credentials are closed");
+                    }
+                    try {
+                        executor.getQueue().put(task);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for a worker", e);
+                    }
+                });
+        workers.allowCoreThreadTimeOut(true);
+        random.nextBytes(key);
+    }
+
+    /**
+     * Hashes the PIN with a new salt on a worker.
+     * @param pin the PIN
+     * @return the hashed PIN to store
+     * @throws SQLException if interrupted while waiting
+     */
+    String hash(String pin) throws SQLException {
+        return await(workers.submit(() -> hashNow(pin)));
+    }
+
+    /**
+     * Hashes many PINs on all the workers.
+     * @param pins the PINs
+     * @param count the number of PINs to hash from the beginning of the array
+     * @return the hashed PINs to store
+     * @throws SQLException if interrupted while waiting
+     */
+    String[] hashAll(String[] pins, int count) throws SQLException {
+        String[] hashed = new String[count];
+        int chunk = Math.max(1, (count + workers.getMaximumPoolSize() - 1) / workers.getMaximumPoolSize());
+        List<Future<Object>> chunks = new ArrayList<>();
+        for (int start = 0; start < count; start += chunk) {
+            int from = start;
+            int to = Math.min(count, start + chunk);
+            chunks.add(workers.submit((Callable<Object>) () -> {
+                for (int i = from; i < to; i++) {
+                    hashed[i] = hashNow(pins[i]);
+                }
+                return null;
+            }));
+        }
+        for (Future<Object> future : chunks) {
+            await(future);
+        }
+        return hashed;
+    }
+
+    /**
+     * Verifies the PIN against the stored one and counts the failure or clears the failures of the card.
+     * A stored PIN which is not hashed yet is compared as it is. The attempt is reserved first and refused
+     * without verifying the PIN if the card is locked or its free attempts are all in flight.
+     * @param number the card number
+     * @param stored the stored PIN
+     * @param pin the PIN to verify
+     * @return {@code true} if the PIN is right, {@code false} if it is wrong or the attempt is refused
+     * @throws SQLException if interrupted while waiting
+     */
+    boolean verify(String number, String stored, String pin) throws SQLException {
+        AtomicLong counter = reserve(number);
+        if (counter == null) {
+            return false;
+        }
+        byte[] digest = digest(number, pin);
+        Verified verified = remembered.get(number);
+        boolean valid;
+        try {
+            if (verified != null && verified.stored.equals(stored) && verified.until > System.currentTimeMillis()
+                    && MessageDigest.isEqual(verified.digest, digest)) {
+                valid = true;
+            } else if (stored.startsWith(PREFIX)) {
+                valid = await(workers.submit(() -> matches(stored, pin)));
+            } else {
+                valid = MessageDigest.isEqual(stored.getBytes(StandardCharsets.UTF_8),
+                        pin.getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (SQLException | RuntimeException e) {
+            // the PIN was not checked, so the attempt is given back
+            release(number, counter, null);
+            throw e;
+        }
+        if (valid) {
+            remember(number, new Verified(stored, digest, System.currentTimeMillis() + REMEMBER_TIME));
+        }
+        release(number, counter, valid);
+        return valid;
+    }
+
+    /**
+     * Gets the time until the card can be tried again.
+     * @param number the card number
+     * @return the time in milliseconds, 0 if the card is not locked
+     */
+    long retryAfter(String number) {
+        AtomicLong counter = failures.get(number);
+        return counter == null ? 0 : Math.max(0, (counter.get() & TIME_MASK) - System.currentTimeMillis());
+    }
+
+    /**
+     * Checks if the stored PIN should be hashed again, because it is not hashed or has another work factor.
+     * @param stored the stored PIN
+     * @return {@code true} if it should be hashed with the current work factor
+     */
+    boolean needsRehash(String stored) {
+        return !stored.startsWith(PREFIX + iterations + "$");
+    }
+
+    /**
+     * Stops the workers once the queued hashes are done.
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+
+    private String hashNow(String pin) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + '$' + encoder.encodeToString(salt) + '$'
+                + encoder.encodeToString(pbkdf2(pin, salt, iterations));
+    }
+
+    /**
+     * Hashes the PIN with the salt and the work factor of the stored one and compares them.
+     */
+    private static boolean matches(String stored, String pin) {
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] expected = decoder.decode(parts[3]);
+            return MessageDigest.isEqual(expected, pbkdf2(pin, decoder.decode(parts[2]), Integer.parseInt(parts[1])));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] pbkdf2(String pin, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(pin.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Makes the fast digest of the PIN of the card, keyed by a secret of the process.
+     */
+    private byte[] digest(String number, String pin) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(key);
+            digest.update(number.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return digest.digest(pin.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void remember(String number, Verified verified) {
+        if (remembered.size() >= MAX_REMEMBERED) {
+            long now = System.currentTimeMillis();
+            remembered.values().removeIf(old -> old.until <= now);
+            if (remembered.size() >= MAX_REMEMBERED) {
+                remembered.clear();
+            }
+        }
+        remembered.put(number, verified);
+    }
+
+    /**
+     * Reserves an attempt on the counter of the card, unless the card is locked or the attempts in flight
+     * would use up its free ones. Once the free attempts are used up, one attempt at a time is let through.
+     * @return the counter holding the reservation, {@code null} if the attempt is refused
+     */
+    private AtomicLong reserve(String number) {
+        while (true) {
+            AtomicLong counter = failures.computeIfAbsent(number, key -> new AtomicLong());
+            long now = System.currentTimeMillis();
+            long current;
+            do {
+                current = counter.get();
+                long count = current >>> COUNT_SHIFT;
+                long pending = current >>> TIME_BITS & PENDING_MASK;
+                if ((current & TIME_MASK) > now || pending >= Math.max(1, FREE_ATTEMPTS - count)) {
+                    return null;
+                }
+            } while (!counter.compareAndSet(current, current + PENDING));
+            if (failures.get(number) == counter) {
+                return counter;
+            }
+            // the counter was cleared and dropped meanwhile, the reservation is moved to the new one
+            counter.addAndGet(-PENDING);
+        }
+    }
+
+    /**
+     * Ends the attempt reserved on the counter: clears the failures after a right PIN, counts the failure
+     * and locks the card once the free attempts are used up after a wrong one, or only gives the attempt
+     * back if the PIN was not checked. A counter left with nothing to count is dropped.
+     * @param valid whether the PIN was right, {@code null} if it was not checked
+     */
+    private void release(String number, AtomicLong counter, Boolean valid) {
+        long now = System.currentTimeMillis();
+        long current;
+        long next;
+        do {
+            current = counter.get();
+            long pending = (current >>> TIME_BITS & PENDING_MASK) - 1;
+            long count = current >>> COUNT_SHIFT;
+            long until = current & TIME_MASK;
+            if (valid == Boolean.TRUE) {
+                count = 0;
+                until = 0;
+            } else if (valid == Boolean.FALSE) {
+                count = Math.min(count + 1, MAX_COUNT);
+                until = count <= FREE_ATTEMPTS ? 0
+                        : now + Math.min(BASE_DELAY << Math.min(count - FREE_ATTEMPTS - 1, 20), MAX_DELAY);
+            }
+            next = count << COUNT_SHIFT | pending << TIME_BITS | until;
+        } while (!counter.compareAndSet(current, next));
+        if (next == 0) {
+            // a reservation made meanwhile sees that the counter was dropped and moves to a new one
+            failures.computeIfPresent(number, (key, value) -> value == counter && value.get() == 0 ? null : value);
+        }
+    }
+
+    /**
+     * Waits for the work of a worker.
+     */
+    private static <T> T await(Future<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while hashing the PIN", e);
+        }
+    }
+
+    /**
+     * Successful verification of a PIN.
+     */
+    private static final class Verified {
+        final String stored;                                           // the stored PIN it was verified against
+        final byte[] digest;                                           // keyed digest of the verified PIN
+        final long until;                                              // ms time when it is forgotten
+
+        Verified(String stored, byte[] digest, long until) {
+            this.stored = stored;
+            this.digest = digest;
+            this.until = until;
+        }
+    }
+}
@@ -0,0 +1,576 @@
+package banking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Write-behind ledger of the operations changing balances: deposits, transfers and closing of accounts.
+ * <p>
+ * The operations are queued and handled by one thread in groups. For every group the thread decides each
+ * operation in order against the balances in the database and the operations accepted before it in the group,
+ * appends the accepted ones to a sequential journal file and forces the journal to the disk once for the whole
+ * group. The group is then applied to the accounts table in one transaction, together with the sequence number
+ * of its last operation, so a group costs one fsync and one transaction however many operations it has. Only then
+ * are the operations acknowledged, so an acknowledged operation is seen by every read which follows it: a balance
+ * after a deposit, a login after the closing of the account, or a new account given the number of a closed one.
+ * While a group is journaled and applied, the next one gathers in the queue.
+ * <p>
+ * The new balances of the cached accounts of a group are written to the {@link AccountCache} of the repository
+ * once it is applied, so the cache never holds a balance which is not durable, and the accounts it closed are
+ * removed from the cache rather than cached as missing, as their numbers may be given to new accounts at once.
+ * If the group fails, all its accounts are removed from the cache instead. The committer reads the balances of the cached accounts without a query,
+ * and without counting the lookups in the statistics of the cache, and finds most of the numbers without
+ * an account in the filter of the repository.
+ * <p>
+ * A group which fails before it reaches the accounts table is reported as failed and cut off the journal again,
+ * so it is never carried out later, and the groups after it are handled as usual. Only an error which leaves
+ * the state of the journal unknown stops the ledger until the next start.
+ * <p>
+ * On startup the operations in the journal after the last applied sequence number are applied again, so an
+ * acknowledged operation is never lost, and an incomplete record at the end, of a group never acknowledged,
+ * is cut off. Once the journal grows over a limit and all of it is applied and checkpointed into the database
+ * file, it starts again from the beginning.
+ */
+final class Ledger implements AutoCloseable {
+    static final int MAX_GROUP = 4096;                                 // operations decided and committed at once
+    private static final long JOURNAL_LIMIT = 64L << 20;               // bytes after which the journal restarts
+    private static final byte DEPOSIT = 1;                             // record types
+    private static final byte TRANSFER = 2;
+    private static final byte CLOSE = 3;
+    private static final int HEADER = 8;                               // length and CRC of a record
+    private final AccountRepository repository;                        // the accounts database
+    private final FileChannel journal;                                 // appended operations
+    private final BlockingQueue<Operation> queue = new LinkedBlockingQueue<>(); // operations not decided yet
+    private final Thread committer;                                    // decides, journals and applies the groups
+    private final CRC32 crc = new CRC32();                             // used by the committer only
+    private final Map<String, Long> balances = new HashMap<>();        // of the group, -1 for no account
+    private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);          // records of the group being written
+    private long sequence;                                             // sequence number of the last record
+    private volatile boolean closed;                                   // no more operations are accepted
+    private volatile Exception failure;                                // error which stopped the committer
+
+    /**
+     * Opens the ledger, replays the operations of the journal which were not applied yet and starts the committer.
+     * @param repository the accounts database
+     * @param journal the journal file, created if it does not exist
+     * @throws IOException if the journal cannot be read
+     * @throws SQLException if the replayed operations cannot be applied
+     */
+    Ledger(AccountRepository repository, Path journal) throws IOException, SQLException {
+        this.repository = repository;
+        this.journal = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            replay();
+        } catch (IOException | SQLException | RuntimeException e) {
+            this.journal.close();
+            throw e;
+        }
+        this.committer = new Thread(this::commitGroups, "ledger");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Adds the money to the account.
+     * @param number the account number
+     * @param amount the amount of money, positive
+     * @return completed once the deposit is durable and applied, with DONE or NO_SUCH_ACCOUNT
+     * @throws IllegalArgumentException if the amount is not positive
+     */
+    CompletableFuture<AccountRepository.TransferResult> deposit(String number, int amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be positive: " + amount);
+        }
+        return submit(new Operation(DEPOSIT, number, null, amount));
+    }
+
+    /**
+     * Transfers the money from one account to another if the balance of the first one covers it.
+     * @param numberFrom the account the money is taken from
+     * @param numberTo the account the money is added to
+     * @param amount the amount of money, positive
+     * @return completed once the transfer is durable and applied, with its result
+     * @throws IllegalArgumentException if the amount is not positive or the accounts are the same
+     */
+    CompletableFuture<AccountRepository.TransferResult> transfer(String numberFrom, String numberTo, int amount) {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be positive: " + amount);
+        }
+        if (numberFrom.equals(numberTo)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account " + numberTo);
+        }
+        return submit(new Operation(TRANSFER, numberFrom, numberTo, amount));
+    }
+
+    /**
+     * Closes the account, after the operations submitted before.
+     * @param number the account number
+     * @return completed once the closing is durable and applied, with DONE or NO_SUCH_ACCOUNT
+     */
+    CompletableFuture<AccountRepository.TransferResult> closeAccount(String number) {
+        return submit(new Operation(CLOSE, number, null, 0));
+    }
+
+    /**
+     * Waits for the result of an operation.
+     * @param result the result of the operation
+     * @return the result
+     * @throws SQLException if the operation failed
+     */
+    static AccountRepository.TransferResult await(CompletableFuture<AccountRepository.TransferResult> result)
+            throws SQLException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof SQLException ? (SQLException) e.getCause() : new SQLException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the ledger", e);
+        }
+    }
+
+    /**
+     * Stops accepting operations, waits until the queued ones are applied and closes the journal.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        queue.add(Operation.END);
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Failed to close the journal.");
+        }
+    }
+
+    private CompletableFuture<AccountRepository.TransferResult> submit(Operation operation) {
+        if (closed) {
+            throw new IllegalStateException("The ledger is closed");
+        }
+        Exception cause = failure;
+        if (cause != null) {
+            operation.result.completeExceptionally(cause);
+        } else {
+            queue.add(operation);
+        }
+        return operation.result;
+    }
+
+    /**
+     * Loop of the committer thread.
+     */
+    private void commitGroups() {
+        List<Operation> group = new ArrayList<>(MAX_GROUP);
+        boolean running = true;
+        while (running) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(group, MAX_GROUP - 1);
+            if (group.remove(Operation.END)) {
+                running = false;
+            }
+            if (failure != null) {
+                fail(group, failure);
+            } else {
+                try {
+                    commit(group);
+                } catch (IOException | SQLException | RuntimeException e) {
+                    // the state of the journal or the database is not known, the journal is replayed on the next start
+                    failure = e;
+                    fail(group, e);
+                }
+            }
+            group.clear();
+        }
+        Operation operation;
+        while ((operation = queue.poll()) != null) {
+            operation.result.completeExceptionally(new IllegalStateException("The ledger is closed"));
+        }
+    }
+
+    /**
+     * Decides, journals, applies and acknowledges the group. A group which fails before it is applied is
+     * reported as failed and cut off the journal, so it is not replayed, and the next group is handled as usual.
+     * @throws IOException if the journal cannot be restored after a failure, the ledger then stops
+     * @throws SQLException if it cannot be found out whether a failed group was applied, the ledger then stops
+     */
+    private void commit(List<Operation> group) throws IOException, SQLException {
+        balances.clear();
+        long first = sequence;
+        List<Operation> accepted;
+        try {
+            accepted = repository.execute(connection -> decide(connection, group));
+        } catch (SQLException | RuntimeException e) {
+            // nothing was written yet
+            sequence = first;
+            fail(group, e);
+            return;
+        }
+        if (!accepted.isEmpty()) {
+            long start = journal.position();
+            try {
+                buffer.clear();
+                for (Operation operation : accepted) {
+                    write(operation);
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    journal.write(buffer);
+                }
+                journal.force(false);
+                apply(accepted);
+            } catch (IOException | SQLException | RuntimeException e) {
+                // whether the group reached the accounts table is not known, so the accounts are loaded again
+                balances.keySet().forEach(repository.cache()::invalidate);
+                try {
+                    if (appliedSequence() < sequence) {
+                        journal.truncate(start);
+                        journal.position(start);
+                        journal.force(false);
+                        sequence = first;
+                        fail(group, e);
+                        return;
+                    }
+                } catch (IOException | SQLException | RuntimeException undo) {
+                    e.addSuppressed(undo);
+                    throw e;
+                }
+                // the transaction was committed although it reported the error
+            }
+            // replaces the balances from before the group loaded while it was applied
+            writeThrough(accepted);
+        }
+        for (Operation operation : group) {
+            operation.result.complete(operation.decision);
+        }
+        if (!accepted.isEmpty() && journal.size() > JOURNAL_LIMIT) {
+            restartJournal();
+        }
+    }
+
+    /**
+     * Completes the operations of the group with the error.
+     */
+    private static void fail(List<Operation> group, Exception cause) {
+        group.forEach(operation -> operation.result.completeExceptionally(cause));
+    }
+
+    /**
+     * Gets the sequence number of the last operation applied to the accounts table.
+     */
+    private long appliedSequence() throws SQLException {
+        return repository.execute(connection -> {
+            PreparedStatement statement = connection.prepare("SELECT applied FROM ledger WHERE id = 0");
+            try (ResultSet set = statement.executeQuery()) {
+                set.next();
+                return set.getLong(1);
+            }
+        });
+    }
+
+    /**
+     * Decides the operations of the group in order and numbers the accepted ones.
+     * @return the accepted operations
+     */
+    private List<Operation> decide(AccountRepository.PooledConnection connection, List<Operation> group)
+            throws SQLException {
+        List<Operation> accepted = new ArrayList<>(group.size());
+        for (Operation operation : group) {
+            long from = balance(connection, operation.number);
+            AccountRepository.TransferResult result;
+            switch (operation.type) {
+                case DEPOSIT:
+                    if (from < 0) {
+                        result = AccountRepository.TransferResult.NO_SUCH_ACCOUNT;
+                    } else {
+                        balances.put(operation.number, from + operation.amount);
+                        result = AccountRepository.TransferResult.DONE;
+                    }
+                    break;
+                case TRANSFER:
+                    long to = balance(connection, operation.numberTo);
+                    if (from < operation.amount) {
+                        result = AccountRepository.TransferResult.NOT_ENOUGH_MONEY;
+                    } else if (to < 0) {
+                        result = AccountRepository.TransferResult.NO_SUCH_ACCOUNT;
+                    } else {
+                        balances.put(operation.number, from - operation.amount);
+                        balances.put(operation.numberTo, to + operation.amount);
+                        result = AccountRepository.TransferResult.DONE;
+                    }
+                    break;
+                default:
+                    if (from < 0) {
+                        result = AccountRepository.TransferResult.NO_SUCH_ACCOUNT;
+                    } else {
+                        balances.put(operation.number, -1L);
+                        result = AccountRepository.TransferResult.DONE;
+                    }
+                    break;
+            }
+            operation.decision = result;
+            if (result == AccountRepository.TransferResult.DONE) {
+                operation.sequence = ++sequence;
+                accepted.add(operation);
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Gets the balance of the account after the operations accepted so far, -1 if there is no such account.
+     */
+    private long balance(AccountRepository.PooledConnection connection, String number) throws SQLException {
+        Long balance = balances.get(number);
+        if (balance == null) {
+            if (!repository.mightExist(number)) {
+                balances.put(number, -1L);
+                return -1;
+            }
+            // the cache is written through by every change, and the groups before are applied already
+            AccountCache.Entry entry = repository.cache().peek(number);
+            if (entry != null) {
+                balances.put(number, entry.balance);
+                return entry.balance;
+            }
+            PreparedStatement statement = connection.prepare("SELECT balance FROM accounts WHERE number = ?");
+            statement.setString(1, number);
+            try (ResultSet set = statement.executeQuery()) {
+                balance = set.next() ? set.getLong(1) : -1L;
+            }
+            balances.put(number, balance);
+        }
+        return balance;
+    }
+
+    /**
+     * Writes the balances of the accounts of the group to the cache and drops the accounts it closed. A number
+     * only found without an account is left alone, an insert may have given it one since.
+     */
+    private void writeThrough(List<Operation> accepted) {
+        AccountCache cache = repository.cache();
+        for (Map.Entry<String, Long> balance : balances.entrySet()) {
+            if (balance.getValue() >= 0) {
+                cache.updateBalance(balance.getKey(), balance.getValue());
+            }
+        }
+        for (Operation operation : accepted) {
+            if (operation.type == CLOSE) {
+                // not cached as missing, the number may be given to a new account as soon as it is deleted
+                cache.invalidate(operation.number);
+            }
+        }
+    }
+
+    /**
+     * Appends the record of the operation to the buffer.
+     */
+    private void write(Operation operation) {
+        byte[] number = operation.number.getBytes(StandardCharsets.US_ASCII);
+        byte[] numberTo = operation.numberTo == null ? new byte[0] : operation.numberTo.getBytes(StandardCharsets.US_ASCII);
+        int length = Long.BYTES + 1 + Integer.BYTES + 2 + number.length + numberTo.length;
+        if (buffer.remaining() < HEADER + length) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + HEADER + length));
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+        int start = buffer.position() + HEADER;
+        buffer.position(start);
+        buffer.putLong(operation.sequence).put(operation.type).putInt(operation.amount);
+        buffer.put((byte) number.length).put(number).put((byte) numberTo.length).put(numberTo);
+        crc.reset();
+        crc.update(buffer.array(), start, length);
+        buffer.putInt(start - HEADER, length).putInt(start - HEADER + Integer.BYTES, (int) crc.getValue());
+    }
+
+    /**
+     * Applies the operations to the accounts table in one transaction and records the last of them as applied.
+     * Every update still checks that the account exists and that a debit is covered by the balance, as the
+     * decisions were taken against balances which a change made around the ledger could have made stale.
+     * @throws SQLException if an update does not hold, the whole transaction is then rolled back
+     */
+    private void apply(List<Operation> operations) throws SQLException {
+        repository.transaction(connection -> {
+            PreparedStatement update = connection.prepare(
+                    "UPDATE accounts SET balance = balance + ? WHERE number = ? AND balance + ? >= 0");
+            PreparedStatement delete = connection.prepare("DELETE FROM accounts WHERE number = ?");
+            for (Operation operation : operations) {
+                switch (operation.type) {
+                    case DEPOSIT:
+                        add(update, operation.number, operation.amount);
+                        break;
+                    case TRANSFER:
+                        add(update, operation.number, -operation.amount);
+                        add(update, operation.numberTo, operation.amount);
+                        break;
+                    default:
+                        // the number may be given to a new account later, so the updates before go first
+                        check(update.executeBatch());
+                        delete.setString(1, operation.number);
+                        check(new int[] {delete.executeUpdate()});
+                        break;
+                }
+            }
+            check(update.executeBatch());
+            PreparedStatement applied = connection.prepare("UPDATE ledger SET applied = ? WHERE id = 0");
+            applied.setLong(1, operations.get(operations.size() - 1).sequence);
+            applied.executeUpdate();
+            return null;
+        });
+    }
+
+    /**
+     * Adds the update of the balance of the account to the batch.
+     */
+    private static void add(PreparedStatement update, String number, int amount) throws SQLException {
+        update.setInt(1, amount);
+        update.setString(2, number);
+        update.setInt(3, amount);
+        update.addBatch();
+    }
+
+    /**
+     * Checks that every statement of a batch changed its account.
+     */
+    private static void check(int[] counts) throws SQLException {
+        for (int count : counts) {
+            if (count == 0) {
+                throw new SQLException("An account was changed around the ledger, the group no longer holds");
+            }
+        }
+    }
+
+    /**
+     * Empties the journal if the database file holds all of it. The write-ahead log of SQLite is not synced
+     * on every commit, so it is checkpointed into the database file first.
+     */
+    private void restartJournal() throws IOException, SQLException {
+        boolean checkpointed = repository.write(connection -> {
+            try (Statement statement = connection.connection.createStatement();
+                 ResultSet set = statement.executeQuery("PRAGMA wal_checkpoint(FULL)")) {
+                return set.next() && set.getInt(1) == 0;
+            }
+        });
+        if (checkpointed) {
+            journal.truncate(0);
+            journal.force(true);
+        }
+    }
+
+    /**
+     * Applies the operations of the journal after the last applied one and cuts off an incomplete end.
+     */
+    private void replay() throws IOException, SQLException {
+        long applied = repository.transaction(connection -> {
+            try (Statement statement = connection.connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS ledger (id INTEGER PRIMARY KEY, applied INTEGER NOT NULL)");
+                statement.execute("INSERT OR IGNORE INTO ledger(id, applied) VALUES(0, 0)");
+                try (ResultSet set = statement.executeQuery("SELECT applied FROM ledger WHERE id = 0")) {
+                    set.next();
+                    return set.getLong(1);
+                }
+            }
+        });
+        sequence = applied;
+        List<Operation> operations = new ArrayList<>();
+        ByteBuffer data = ByteBuffer.allocate((int) Math.min(journal.size(), Integer.MAX_VALUE - 8));
+        while (data.hasRemaining() && journal.read(data, data.position()) >= 0) {
+            // reads the whole journal
+        }
+        data.flip();
+        int end = 0;
+        while (data.remaining() >= HEADER) {
+            int length = data.getInt();
+            int checksum = data.getInt();
+            if (length <= 0 || length > data.remaining()) {
+                break;
+            }
+            crc.reset();
+            crc.update(data.array(), data.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            Operation operation = read(data);
+            end = data.position();
+            if (operation.sequence > applied) {
+                operations.add(operation);
+                sequence = operation.sequence;
+            }
+            if (operations.size() == MAX_GROUP) {
+                apply(operations);
+                operations.clear();
+            }
+        }
+        if (!operations.isEmpty()) {
+            apply(operations);
+        }
+        if (end < journal.size()) {
+            journal.truncate(end);
+        }
+        journal.position(end);
+    }
+
+    /**
+     * Reads the record of an operation, after its header.
+     */
+    private static Operation read(ByteBuffer data) {
+        long sequence = data.getLong();
+        byte type = data.get();
+        int amount = data.getInt();
+        byte[] number = new byte[data.get()];
+        data.get(number);
+        byte[] numberTo = new byte[data.get()];
+        data.get(numberTo);
+        Operation operation = new Operation(type, new String(number, StandardCharsets.US_ASCII),
+                numberTo.length == 0 ? null : new String(numberTo, StandardCharsets.US_ASCII), amount);
+        operation.sequence = sequence;
+        return operation;
+    }
+
+    /**
+     * Operation waiting for its decision.
+     */
+    private static final class Operation {
+        static final Operation END = new Operation((byte) 0, null, null, 0); // stops the committer
+        final byte type;                                               // DEPOSIT, TRANSFER or CLOSE
+        final String number;                                           // the account, the source of a transfer
+        final String numberTo;                                         // the target of a transfer
+        final int amount;                                              // the amount of money
+        final CompletableFuture<AccountRepository.TransferResult> result = new CompletableFuture<>();
+        AccountRepository.TransferResult decision;                     // result decided by the committer
+        long sequence;                                                 // sequence number in the journal
+
+        Operation(byte type, String number, String numberTo, int amount) {
+            this.type = type;
+            this.number = number;
+            this.numberTo = numberTo;
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package banking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares deposits from many threads through the ledger with deposits committed one by one. All of them
+ * are durable once acknowledged: the ledger forces its journal for every group, the single commits run
+ * with {@code synchronous=FULL}. Committing one by one with {@code synchronous=NORMAL}, as the repository does,
+ * is shown too, although such a deposit can be lost when the machine fails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class LedgerBenchmark {
+    @Param({"10000"})
+    private int accounts;
+    private Path directory;                                            // holds the database files
+    private AccountRepository repository;                              // database changed through the ledger
+    private Ledger ledger;                                             // the ledger
+    private AccountRepository durable;                                 // database with synchronous=FULL
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("bank");
+        repository = open(directory.resolve("ledger.db"));
+        ledger = new Ledger(repository, directory.resolve("ledger.db.journal"));
+        durable = open(directory.resolve("durable.db"));
+    }
+
+    private AccountRepository open(Path file) throws SQLException {
+        AccountRepository opened = new AccountRepository(file.toString(), 16);
+        opened.migrate(false);
+        opened.execute(connection -> {
+            AccountRepositoryBenchmark.fill(connection.connection, accounts);
+            return null;
+        });
+        return opened;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ledger.close();
+        repository.close();
+        durable.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public AccountRepository.TransferResult depositLedger() throws SQLException {
+        return Ledger.await(ledger.deposit(number(), 1));
+    }
+
+    @Benchmark
+    public int depositFullSync() throws SQLException {
+        String number = number();
+        return durable.write(connection -> {
+            // the pooled connections are opened lazily, so every one is switched on its use
+            try (Statement statement = connection.connection.createStatement()) {
+                statement.execute("PRAGMA synchronous=FULL");
+            }
+            PreparedStatement statement = connection.prepare("UPDATE accounts SET balance = balance + 1 WHERE number = ?");
+            statement.setString(1, number);
+            return statement.executeUpdate();
+        });
+    }
+
+    @Benchmark
+    public void depositNormalSync() throws SQLException {
+        repository.addMoney(number(), 1);
+    }
+
+    private String number() {
+        return AccountRepositoryBenchmark.number(ThreadLocalRandom.current().nextInt(accounts));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LedgerBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
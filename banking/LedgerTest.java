@@ -0,0 +1,94 @@
+package banking;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LedgerTest {
+    private static final String NUMBER = "4000003938320895";
+    private static final String OTHER = "4000007348416410";
+
+    @Test
+    void failedApplyIsNotReplayed(@TempDir Path directory) throws Exception {
+        String db = directory.resolve("bank.db").toString();
+        Path journal = Path.of(db + ".journal");
+        AccountRepository repository = new AccountRepository(db, AccountRepository.DEFAULT_POOL_SIZE, 0, 1);
+        try {
+            repository.migrate(false);
+            repository.insert(NUMBER, "1234");
+            Ledger ledger = new Ledger(repository, journal);
+            execute(repository, "CREATE TRIGGER fail_updates BEFORE UPDATE OF balance ON accounts "
+                    + "BEGIN SELECT RAISE(ABORT, 'the update fails'); END");
+            assertThrows(SQLException.class, () -> Ledger.await(ledger.deposit(NUMBER, 100)));
+            execute(repository, "DROP TRIGGER fail_updates");
+            // the failure stopped only its own group
+            assertEquals(AccountRepository.TransferResult.DONE, Ledger.await(ledger.deposit(NUMBER, 10)));
+            assertEquals(10, repository.balance(NUMBER));
+            ledger.close();
+
+            // the journal holds only the deposit which was applied, and it is not applied twice
+            new Ledger(repository, journal).close();
+            assertEquals(10, repository.balance(NUMBER));
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    void closedNumberCanBeReused(@TempDir Path directory) throws Exception {
+        String db = directory.resolve("bank.db").toString();
+        AccountRepository repository = new AccountRepository(db, AccountRepository.DEFAULT_POOL_SIZE, 1000, 1);
+        try {
+            repository.migrate(false);
+            repository.loadNumbers();
+            repository.insert(NUMBER, "1234");
+            try (Ledger ledger = new Ledger(repository, Path.of(db + ".journal"))) {
+                assertEquals(AccountRepository.TransferResult.DONE, Ledger.await(ledger.closeAccount(NUMBER)));
+                assertEquals("", repository.validateLogin(NUMBER, "1234"));
+                repository.insert(NUMBER, "4321");
+                assertEquals(NUMBER, repository.validateLogin(NUMBER, "4321"));
+                assertEquals(AccountRepository.TransferResult.DONE, Ledger.await(ledger.deposit(NUMBER, 5)));
+                assertEquals(5, repository.balance(NUMBER));
+            }
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    void staleDecisionDoesNotOverdraw(@TempDir Path directory) throws Exception {
+        String db = directory.resolve("bank.db").toString();
+        AccountRepository repository = new AccountRepository(db, AccountRepository.DEFAULT_POOL_SIZE, 1000, 1);
+        try {
+            repository.migrate(false);
+            repository.insert(NUMBER, "1234");
+            repository.insert(OTHER, "1234");
+            try (Ledger ledger = new Ledger(repository, Path.of(db + ".journal"))) {
+                Ledger.await(ledger.deposit(NUMBER, 10));
+                assertEquals(10, repository.balance(NUMBER));
+                // taken around the ledger and the cache, which still holds 10
+                execute(repository, "UPDATE accounts SET balance = 0 WHERE number = '" + NUMBER + "'");
+                assertThrows(SQLException.class, () -> Ledger.await(ledger.transfer(NUMBER, OTHER, 10)));
+                assertEquals(AccountRepository.TransferResult.DONE, Ledger.await(ledger.deposit(OTHER, 1)));
+            }
+            assertEquals(0, repository.balance(NUMBER));
+            assertEquals(1, repository.balance(OTHER));
+        } finally {
+            repository.close();
+        }
+    }
+
+    private static void execute(AccountRepository repository, String sql) throws SQLException {
+        repository.write(connection -> {
+            try (Statement statement = connection.connection.createStatement()) {
+                return statement.execute(sql);
+            }
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package banking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the logins per second with the PINs hashed at several work factors, from 16 threads sharing
+ * the workers which verify the PINs. The first logins of 100k accounts each verify the hash, the repeated
+ * logins of 100 accounts are mostly answered by the remembered verifications. The accounts are cached,
+ * so the logins do not wait for the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class LoginBenchmark {
+    private static final int ACCOUNTS = 100_000;                       // accounts in the database
+    private static final int HOT = 100;                                // accounts logging in repeatedly
+    @Param({"1000", "10000", "100000"})
+    private int iterations;
+    private Path directory;                                            // holds the database file
+    private AccountRepository repository;                              // the database
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("bank");
+        repository = new AccountRepository(directory.resolve("logins.db").toString(), AccountRepository.DEFAULT_POOL_SIZE,
+                AccountCache.DEFAULT_CAPACITY, iterations);
+        repository.migrate(false);
+        repository.execute(connection -> {
+            AccountRepositoryBenchmark.fill(connection.connection, ACCOUNTS);
+            return null;
+        });
+        // one hash for all the accounts, hashing every PIN would take minutes at the highest work factor
+        String hashed;
+        try (Credentials credentials = new Credentials(iterations)) {
+            hashed = credentials.hash("0000");
+        }
+        repository.execute(connection -> {
+            try (PreparedStatement statement = connection.connection.prepareStatement("UPDATE accounts SET pin = ?")) {
+                statement.setString(1, hashed);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public String login() throws SQLException {
+        return repository.validateLogin(AccountRepositoryBenchmark.number(ThreadLocalRandom.current().nextInt(ACCOUNTS)), "0000");
+    }
+
+    @Benchmark
+    public String repeatedLogin() throws SQLException {
+        return repository.validateLogin(AccountRepositoryBenchmark.number(ThreadLocalRandom.current().nextInt(HOT)), "0000");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LoginBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,97 @@
+package banking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares looking up accounts by card number in the original schema, which scans the table, with the schemas
+ * after the migrations to the index on the number and to the numbers stored as INTEGER.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+    @Param({"1000000", "10000000"})
+    private int accounts;
+    @Param({"UNINDEXED", "INDEXED", "COMPACT"})
+    private String schema;
+    private Path directory;                                            // holds the database file
+    private AccountRepository repository;                              // the database
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("bank");
+        repository = new AccountRepository(directory.resolve("lookups.db").toString());
+        int version;
+        switch (schema) {
+            case "UNINDEXED" -> version = Migrations.ACCOUNTS_TABLE;
+            case "INDEXED" -> version = Migrations.INDEXED_NUMBERS;
+            case "COMPACT" -> version = Migrations.COMPACT_NUMBERS;
+            default -> throw new IllegalArgumentException("Unknown schema " + schema);
+        }
+        repository.transaction(connection -> {
+            Migrations.migrate(connection.connection, Migrations.ACCOUNTS_TABLE);
+            return null;
+        });
+        repository.execute(connection -> {
+            AccountRepositoryBenchmark.fill(connection.connection, accounts);
+            return null;
+        });
+        repository.transaction(connection -> {
+            Migrations.migrate(connection.connection, version);
+            return null;
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public int balance() throws SQLException {
+        return repository.balance(AccountRepositoryBenchmark.number(ThreadLocalRandom.current().nextInt(accounts)));
+    }
+
+    @Benchmark
+    public boolean missingNumber() throws SQLException {
+        return repository.isInDatabase(AccountRepositoryBenchmark.number(accounts + ThreadLocalRandom.current().nextInt(accounts)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LookupBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
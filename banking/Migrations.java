@@ -0,0 +1,107 @@
+package banking;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Versioned migrations of the database schema. The version of a database is kept in {@code PRAGMA user_version},
+ * which is 0 for a new file and for the files created before the migrations, and every migration step raises
+ * it by one in the same transaction as its changes, so a database is never left between two versions.
+ * <p>
+ * Versions:
+ * <ol>
+ *     <li>the accounts table as it always was, with the card number as TEXT</li>
+ *     <li>UNIQUE index on the card number, so lookups by number take O(log n) instead of scanning the table</li>
+ *     <li>optional: the card number stored as INTEGER, which takes 8 bytes instead of 16 in the table and in the
+ *     index. Queries do not change, SQLite converts the numbers bound as text by the INTEGER affinity of the column
+ *     and still uses the index.</li>
+ * </ol>
+ */
+final class Migrations {
+    static final int ACCOUNTS_TABLE = 1;                               // version with the original table
+    static final int INDEXED_NUMBERS = 2;                              // version with the index on the number
+    static final int COMPACT_NUMBERS = 3;                              // version with the number as INTEGER
+
+    private Migrations() {
+    }
+
+    /**
+     * Gets the schema version of the database.
+     * @param connection the connection to the database
+     * @return the schema version, 0 for a database without the migrations
+     * @throws SQLException if the version cannot be read
+     */
+    static int version(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet set = statement.executeQuery("PRAGMA user_version")) {
+            return set.next() ? set.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Upgrades the database to the target version by running the missing steps in order. A database already
+     * at the target version or above it is left as it is. It should be called in a transaction.
+     * @param connection the connection to the database
+     * @param target the version to upgrade to
+     * @throws SQLException if a step fails, e.g. the existing card numbers are not unique
+     * @throws IllegalArgumentException if the target version is not known
+     */
+    static void migrate(Connection connection, int target) throws SQLException {
+        if (target < ACCOUNTS_TABLE || target > COMPACT_NUMBERS) {
+            throw new IllegalArgumentException("Unknown schema version " + target);
+        }
+        int version = version(connection);
+        if (version > COMPACT_NUMBERS) {
+            throw new SQLException(String.format("Schema version %d is newer than the supported %d", version, COMPACT_NUMBERS));
+        }
+        try (Statement statement = connection.createStatement()) {
+            while (version < target) {
+                version++;
+                apply(statement, version);
+                statement.execute("PRAGMA user_version = " + version);
+            }
+        }
+    }
+
+    /**
+     * Runs the step upgrading the database to the version.
+     */
+    private static void apply(Statement statement, int version) throws SQLException {
+        switch (version) {
+            case ACCOUNTS_TABLE:
+                statement.execute("CREATE TABLE IF NOT EXISTS accounts (\n" +
+                        "        id INTEGER PRIMARY KEY,\n" +
+                        "        number TEXT,\n" +
+                        "        pin TEXT,\n" +
+                        "        balance INTEGER DEFAULT 0\n" +
+                        ");");
+                break;
+            case INDEXED_NUMBERS:
+                statement.execute("CREATE UNIQUE INDEX IF NOT EXISTS accounts_number ON accounts(number)");
+                break;
+            case COMPACT_NUMBERS:
+                // numbers with leading zeros or other characters would change when converted
+                try (ResultSet set = statement.executeQuery("SELECT COUNT(*) FROM accounts " +
+                        "WHERE CAST(CAST(number AS INTEGER) AS TEXT) IS NOT number")) {
+                    if (set.next() && set.getInt(1) > 0) {
+                        throw new SQLException(set.getInt(1) + " card numbers cannot be stored as integers");
+                    }
+                }
+                statement.execute("CREATE TABLE accounts_compact (\n" +
+                        "        id INTEGER PRIMARY KEY,\n" +
+                        "        number INTEGER NOT NULL UNIQUE,\n" +
+                        "        pin TEXT,\n" +
+                        "        balance INTEGER DEFAULT 0\n" +
+                        ");");
+                statement.execute("INSERT INTO accounts_compact(id, number, pin, balance) " +
+                        "SELECT id, CAST(number AS INTEGER), pin, balance FROM accounts ORDER BY id");
+                statement.execute("DROP TABLE accounts");
+                statement.execute("ALTER TABLE accounts_compact RENAME TO accounts");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown schema version " + version);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package banking;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter of the card numbers. It answers whether a number may have an account: a negative answer is
+ * always right, a positive one is wrong with a small probability, about 1% when the filter holds as many numbers
+ * as it was sized for. The numbers cannot be removed, a closed account stays a false positive until the filter
+ * is built again.
+ * <p>
+ * The bits are kept in an AtomicLongArray, so the numbers can be added and looked up by many threads at once
+ * without locking. Every number sets {@link #HASHES} bits, picked by double hashing of one 64-bit hash.
+ */
+final class NumberFilter {
+    static final double FALSE_POSITIVE_RATE = 0.01;                    // at the capacity
+    static final int HASHES = 7;                                       // bits set by every number, for the rate
+    private static final double BITS_PER_NUMBER = 9.6;                 // -ln(rate) / ln(2)^2, for the rate
+    private final int capacity;                                        // numbers the filter is sized for
+    private final long bits;                                           // size of the filter in bits
+    private final AtomicLongArray words;                               // the bits
+    private final AtomicInteger count = new AtomicInteger();           // numbers which set a new bit
+    private final LongAdder negatives = new LongAdder();               // lookups answered no
+    private final LongAdder falsePositives = new LongAdder();          // lookups answered yes for no account
+
+    /**
+     * Creates an empty filter.
+     * @param capacity the number of numbers to keep the false positive rate at {@link #FALSE_POSITIVE_RATE}
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    NumberFilter(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        int length = (int) Math.ceil(capacity * BITS_PER_NUMBER / Long.SIZE);
+        this.bits = (long) length * Long.SIZE;
+        this.words = new AtomicLongArray(length);
+    }
+
+    /**
+     * Adds the number to the filter.
+     * @param number the card number
+     */
+    void add(String number) {
+        long hash = hash(number);
+        long step = hash >>> 32 | 1;
+        boolean changed = false;
+        for (int i = 0; i < HASHES; i++, hash += step) {
+            long bit = Math.floorMod(hash, bits);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0) {
+                long witness = words.compareAndExchange(index, word, word | mask);
+                if (witness == word) {
+                    changed = true;
+                    break;
+                }
+                word = witness;
+            }
+        }
+        if (changed) {
+            count.incrementAndGet();
+        }
+    }
+
+    /**
+     * Checks if the number may have been added, counting the negative answers.
+     * @param number the card number
+     * @return {@code false} if the number was surely not added
+     */
+    boolean mightContain(String number) {
+        long hash = hash(number);
+        long step = hash >>> 32 | 1;
+        for (int i = 0; i < HASHES; i++, hash += step) {
+            long bit = Math.floorMod(hash, bits);
+            if ((words.get((int) (bit >>> 6)) & 1L << bit) == 0) {
+                negatives.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records that a positive answer turned out to be wrong, for the measured false positive rate.
+     */
+    void falsePositive() {
+        falsePositives.increment();
+    }
+
+    /**
+     * Gets the number of numbers the filter is sized for.
+     * @return the capacity
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of the numbers added, not counting those which happened to set no new bit.
+     * @return the count
+     */
+    int count() {
+        return count.get();
+    }
+
+    /**
+     * Gets the memory taken by the bits.
+     * @return the size in bytes
+     */
+    long bytes() {
+        return bits / Byte.SIZE;
+    }
+
+    /**
+     * Estimates the false positive rate for the numbers added so far.
+     * @return the probability that a number not added is reported as present
+     */
+    double expectedFalsePositiveRate() {
+        return Math.pow(-Math.expm1(-(double) HASHES * count() / bits), HASHES);
+    }
+
+    /**
+     * Describes the filter, for sizing it.
+     * @return the count, the memory and the expected and measured false positive rates
+     */
+    String stats() {
+        long wrong = falsePositives.sum();
+        long missing = wrong + negatives.sum();
+        return String.format("%d of %d numbers, %d KB, false positive rate %.2f%% expected, %.2f%% measured (%d of %d)",
+                count(), capacity, bytes() >> 10, 100 * expectedFalsePositiveRate(),
+                missing == 0 ? 0.0 : 100.0 * wrong / missing, wrong, missing);
+    }
+
+    /**
+     * Hashes the number with FNV-1a and mixes the bits with the finalizer of MurmurHash3.
+     */
+    private static long hash(String number) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < number.length(); i++) {
+            hash = (hash ^ number.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53a9ca3L;
+        return hash ^ hash >>> 33;
+    }
+}
@@ -0,0 +1,97 @@
+package banking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares checking if a card number exists among 1M indexed accounts with and without the filter of the numbers:
+ * new random numbers, as created for a new account, and numbers of existing accounts. The account cache is off,
+ * so every lookup which passes the filter queries the database. The size and the false positive rate
+ * of the filter are printed after each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NumberFilterBenchmark {
+    private static final int ACCOUNTS = 1_000_000;                     // accounts in the database
+    @Param({"false", "true"})
+    private boolean filter;
+    private Path directory;                                            // holds the database file
+    private AccountRepository repository;                              // the database
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("bank");
+        repository = new AccountRepository(directory.resolve("filter.db").toString());
+        repository.transaction(connection -> {
+            Migrations.migrate(connection.connection, Migrations.ACCOUNTS_TABLE);
+            return null;
+        });
+        repository.execute(connection -> {
+            AccountRepositoryBenchmark.fill(connection.connection, ACCOUNTS);
+            return null;
+        });
+        repository.migrate(false);
+        if (filter) {
+            repository.loadNumbers();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void printStats() {
+        System.out.println("\nNumber filter: " + repository.numbersStats());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public boolean newNumber() throws SQLException {
+        return repository.isInDatabase(Bank.newNumber());
+    }
+
+    @Benchmark
+    public boolean existingNumber() throws SQLException {
+        return repository.isInDatabase(AccountRepositoryBenchmark.number(ThreadLocalRandom.current().nextInt(ACCOUNTS)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(NumberFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
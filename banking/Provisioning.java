@@ -0,0 +1,149 @@
+package banking;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bulk creation of accounts. The card numbers are generated the same way as for a single account, the 400000
+ * prefix, 9 random digits and the checksum digit, but without asking the database whether every number exists:
+ * the numbers already in the database are read once into a compact hash set of their 9 random digits, which also
+ * removes the duplicates among the new numbers. The accounts are then inserted in batches, every batch
+ * in one transaction.
+ */
+final class Provisioning {
+    static final int BATCH_SIZE = 50_000;                              // accounts inserted in one transaction
+    private static final String PREFIX = "400000";                     // issuer identification number
+    private static final int ACCOUNT_DIGITS = 9;                       // random digits after the prefix
+    private static final int ACCOUNT_NUMBERS = 1_000_000_000;          // number of possible random parts
+    private static final int PIN_NUMBERS = 10_000;                     // number of possible PINs
+
+    private Provisioning() {
+    }
+
+    /**
+     * Creates the accounts with random numbers and PINs and writes them to the output,
+     * a line with the number and the PIN separated by a comma for every account.
+     * @param repository the accounts database
+     * @param count the number of accounts to create
+     * @param out the output for the numbers and PINs
+     * @return the number of accounts created, equal to {@code count}
+     * @throws SQLException if the database fails, the accounts inserted by the previous batches stay
+     * @throws IOException if the output fails
+     * @throws IllegalArgumentException if the count is negative or there are not enough free numbers
+     */
+    static int provision(AccountRepository repository, int count, Writer out) throws SQLException, IOException {
+        if (count < 0 || count > ACCOUNT_NUMBERS / 2) {
+            throw new IllegalArgumentException("Count must be within 0 and " + ACCOUNT_NUMBERS / 2 + ": " + count);
+        }
+        NumberSet taken = new NumberSet(count);
+        repository.forEachNumber(number -> {
+            if (number.length() == PREFIX.length() + ACCOUNT_DIGITS + 1 && number.startsWith(PREFIX)) {
+                taken.add(Integer.parseInt(number, PREFIX.length(), PREFIX.length() + ACCOUNT_DIGITS, 10));
+            }
+        });
+        // keep the set sparse enough for the random draws to find free numbers quickly
+        if ((long) taken.size() + count > ACCOUNT_NUMBERS / 2) {
+            throw new IllegalArgumentException(String.format("Not enough free numbers for %d accounts, %d are taken",
+                    count, taken.size()));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder builder = new StringBuilder(PREFIX.length() + ACCOUNT_DIGITS + 1);
+        String[] numbers = new String[Math.min(count, BATCH_SIZE)];
+        String[] pins = new String[numbers.length];
+        int created = 0;
+        while (created < count) {
+            int batch = Math.min(count - created, numbers.length);
+            for (int i = 0; i < batch; i++) {
+                int account;
+                do {
+                    account = random.nextInt(ACCOUNT_NUMBERS);
+                } while (!taken.add(account));
+                builder.setLength(0);
+                builder.append(PREFIX);
+                appendPadded(builder, account, ACCOUNT_DIGITS);
+                builder.append(Bank.calculateChecksum(builder));
+                numbers[i] = builder.toString();
+                builder.setLength(0);
+                appendPadded(builder, random.nextInt(PIN_NUMBERS), 4);
+                pins[i] = builder.toString();
+            }
+            // an account created meanwhile by someone else may have taken one of the numbers, it is skipped
+            // here and its place is filled by the next batch
+            int[] inserted = repository.insertAll(numbers, pins, batch);
+            for (int i = 0; i < batch; i++) {
+                if (inserted[i] > 0) {
+                    out.append(numbers[i]).append(',').append(pins[i]).append('\n');
+                    created++;
+                }
+            }
+        }
+        out.flush();
+        return created;
+    }
+
+    /**
+     * Appends the value with leading zeros up to the number of digits.
+     */
+    private static void appendPadded(StringBuilder builder, int value, int digits) {
+        for (int divisor = (int) Math.pow(10, digits - 1); divisor > 0; divisor /= 10) {
+            builder.append((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    /**
+     * Open-addressing hash set of non-negative ints with linear probing, 4 bytes per slot and no boxing.
+     */
+    private static final class NumberSet {
+        private int[] slots;                                           // value + 1, or 0 for an empty slot
+        private int size;                                              // number of values in the set
+
+        NumberSet(int expected) {
+            slots = new int[Integer.highestOneBit(Math.max(16, expected) * 2 - 1) << 1];
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Adds the value to the set.
+         * @return {@code true} if the value was not in the set yet
+         */
+        boolean add(int value) {
+            if (2 * (size + 1) > slots.length) {
+                grow();
+            }
+            if (!insert(slots, value + 1)) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        private static boolean insert(int[] slots, int key) {
+            int mask = slots.length - 1;
+            int hash = key * 0x9E3779B9;
+            for (int i = (hash ^ hash >>> 16) & mask; ; i = (i + 1) & mask) {
+                if (slots[i] == key) {
+                    return false;
+                }
+                if (slots[i] == 0) {
+                    slots[i] = key;
+                    return true;
+                }
+            }
+        }
+
+        private void grow() {
+            int[] bigger = new int[slots.length * 2];
+            for (int key : slots) {
+                if (key != 0) {
+                    insert(bigger, key);
+                }
+            }
+            slots = bigger;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package banking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares creating many accounts by the bulk provisioning with creating them one by one the way
+ * the menu does, checking every new number with a query and inserting it in its own transaction.
+ * Every iteration starts with an empty database. The PINs are hashed with a single iteration, so that
+ * the inserts are measured rather than the hashing, which LoginBenchmark measures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ProvisioningBenchmark {
+    @Param({"100000", "1000000"})
+    private int count;
+    private Path directory;                                            // holds the database file
+    private AccountRepository repository;                              // the database
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("bank");
+        repository = new AccountRepository(directory.resolve("cards.db").toString(), AccountRepository.DEFAULT_POOL_SIZE, 0, 1);
+        repository.migrate(false);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        repository.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public int provision() throws SQLException, IOException {
+        return Provisioning.provision(repository, count, Writer.nullWriter());
+    }
+
+    @Benchmark
+    public int oneByOne() throws SQLException {
+        int created = 0;
+        while (created < count) {
+            StringBuilder number = new StringBuilder("400000");
+            for (int i = 0; i < 9; i++) {
+                number.append((int) (Math.random() * 10));
+            }
+            number.append(Bank.calculateChecksum(number));
+            if (!repository.isInDatabase(number.toString())) {
+                repository.insert(number.toString(), String.format("%04d", (int) (Math.random() * 10000)));
+                created++;
+            }
+        }
+        return created;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProvisioningBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
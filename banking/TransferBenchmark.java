@@ -0,0 +1,104 @@
+package banking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures transfers between random accounts from many threads at once. After every iteration the total
+ * of the balances must be what it was at the start and no balance may be negative, otherwise the benchmark fails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class TransferBenchmark {
+    private static final int INITIAL_BALANCE = 1000;                  // balance of every account at the start
+    @Param({"100", "10000"})
+    private int accounts;
+    private Path directory;                                            // holds the database file
+    private AccountRepository repository;                              // the database
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("bank");
+        repository = new AccountRepository(directory.resolve("transfers.db").toString());
+        repository.migrate(false);
+        repository.execute(connection -> {
+            AccountRepositoryBenchmark.fill(connection.connection, accounts);
+            try (Statement statement = connection.connection.createStatement()) {
+                statement.executeUpdate("UPDATE accounts SET balance = " + INITIAL_BALANCE);
+            }
+            return null;
+        });
+    }
+
+    @TearDown(Level.Iteration)
+    public void check() throws SQLException {
+        repository.execute(connection -> {
+            try (Statement statement = connection.connection.createStatement();
+                 ResultSet set = statement.executeQuery("SELECT SUM(balance), MIN(balance) FROM accounts")) {
+                set.next();
+                if (set.getLong(1) != (long) accounts * INITIAL_BALANCE || set.getInt(2) < 0) {
+                    throw new IllegalStateException(String.format("Inconsistent balances: total %d, minimum %d",
+                            set.getLong(1), set.getInt(2)));
+                }
+            }
+            return null;
+        });
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public AccountRepository.TransferResult transfer() throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(accounts);
+        int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+        return repository.transferMoney(AccountRepositoryBenchmark.number(from),
+                AccountRepositoryBenchmark.number(to), 1 + random.nextInt(INITIAL_BALANCE / 4));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransferBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
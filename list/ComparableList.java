@@ -1,16 +1,237 @@
 package list;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
 import java.util.StringJoiner;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Creates a growable array for Comparable elements. ComparableList allows duplicates, but not nulls.
  * It is possible to find min, max, sort the elements etc.
+ * <p>
+ * With the {@link Layout#GAP_BUFFER} layout the free slots of the underlying array are kept as a gap
+ * at the position of the last insertion or removal, so a series of edits close to each other does not
+ * shift the rest of the elements every time. Operations going over all the elements close the gap first.
+ * <p>
+ * In the sorted mode the list keeps its elements in the ascending order. Elements are added at the position
+ * found by binary search, lookups use binary search as well and the minimum and maximum are read from the ends.
+ * Operations which would break the order throw {@link UnsupportedOperationException}.
+ * <p>
+ * An indexed list keeps a hash index of its elements, which makes {@link #contains(Comparable)},
+ * {@link #indexOf(Comparable)}, {@link #lastIndexOf(Comparable)} and {@link #frequency(Comparable)} take
+ * expected constant time, at the cost of memory for every distinct element.
  * @param <E> type of elements the list will contain
  */
-public class ComparableList<E extends Comparable<E>> {
-    private int capacity = 10;                                         // number of elements underlying array can hold
+public class ComparableList<E extends Comparable<E>> implements Iterable<E> {
+    /** capacity of a list created without specifying it */
+    public static final int DEFAULT_CAPACITY = 10;
+    /** factor the capacity is multiplied by when the list is full, unless specified otherwise */
+    public static final double DEFAULT_GROWTH_FACTOR = 2.0;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;    // the largest array most VMs can allocate
+
+    private int capacity;                                              // number of elements underlying array can hold
     private int firstNullIndex;                                        // marks the beginning of the unused part
-    @SuppressWarnings("unchecked") private E[] values = (E[]) new Comparable[capacity];   // array of elements
+    private E[] values;                                                // array of elements
+    private final double growthFactor;                                 // the capacity is multiplied by it when full
+    private int gapStart;                                              // index of the element right after the gap
+    private int gapLength;                                             // number of free slots inside the elements
+    private Layout layout;                                             // how the free slots are placed
+    private boolean sortedMode;                                        // keeps the elements in the ascending order
+    private ElementIndex<E> index;                                     // hash index, null if the list is not indexed
+    private int modCount;                                              // number of changes made to the list
+
+    /**
+     * Layout of the underlying array.
+     */
+    public enum Layout {
+        /** the elements are contiguous, inserting and removing in between shifts the following elements */
+        ARRAY,
+        /** the free slots form a gap at the last edited position, edits close to each other are cheap */
+        GAP_BUFFER
+    }
+
+    /**
+     * Creates an empty list with the array layout.
+     */
+    public ComparableList() {
+        this(Layout.ARRAY);
+    }
+
+    /**
+     * Creates an empty list with the specific layout.
+     * @param layout the layout of the underlying array
+     */
+    public ComparableList(Layout layout) {
+        this(DEFAULT_CAPACITY, DEFAULT_GROWTH_FACTOR, layout);
+    }
+
+    /**
+     * Creates an empty list with the array layout, which can hold the specific number of elements
+     * without creating a new underlying array.
+     * @param initialCapacity the initial capacity of the list
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public ComparableList(int initialCapacity) {
+        this(initialCapacity, DEFAULT_GROWTH_FACTOR, Layout.ARRAY);
+    }
+
+    /**
+     * Creates an empty list with the specific initial capacity, growth factor and layout.
+     * @param initialCapacity the initial capacity of the list
+     * @param growthFactor the factor the capacity is multiplied by when the list is full, greater than 1
+     * @param layout the layout of the underlying array
+     * @throws IllegalArgumentException if the initial capacity is negative or the growth factor is not greater than 1
+     */
+    @SuppressWarnings("unchecked")
+    public ComparableList(int initialCapacity, double growthFactor, Layout layout) {
+        if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        if (!(growthFactor > 1)) {
+            throw new IllegalArgumentException("Growth factor must be greater than 1: " + growthFactor);
+        }
+        this.capacity = initialCapacity;
+        this.values = (E[]) new Comparable[initialCapacity];
+        this.growthFactor = growthFactor;
+        this.layout = layout;
+    }
+
+    /**
+     * Gets the number of elements the list can hold without creating a new underlying array.
+     * @return the capacity of the list
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the factor the capacity is multiplied by when the list is full.
+     * @return the growth factor
+     */
+    public double getGrowthFactor() {
+        return growthFactor;
+    }
+
+    /**
+     * Makes sure the list can hold the specific number of elements without creating a new underlying array,
+     * so that a bulk load of known size copies the elements at most once.
+     * @param minCapacity the number of elements the list should be able to hold
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > capacity) {
+            resize(Math.min(MAX_CAPACITY, minCapacity));
+        }
+    }
+
+    /**
+     * Shrinks the underlying array to the number of elements, releasing the unused slots.
+     */
+    public void trimToSize() {
+        if (firstNullIndex < capacity) {
+            resize(firstNullIndex);
+        }
+    }
+
+    /**
+     * Gets the layout of the underlying array.
+     * @return the layout
+     */
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Changes the layout of the underlying array. Switching to the array layout closes the gap.
+     * @param layout the new layout
+     */
+    public void setLayout(Layout layout) {
+        if (layout == Layout.ARRAY) {
+            closeGap();
+        }
+        this.layout = layout;
+    }
+
+    /**
+     * Checks if the list is in the sorted mode.
+     * @return {@code true} if the list keeps its elements in the ascending order, otherwise {@code false}
+     */
+    public boolean isSortedMode() {
+        return sortedMode;
+    }
+
+    /**
+     * Turns the sorted mode on or off. Turning it on sorts the elements in the ascending order.
+     * @param sortedMode {@code true} to keep the elements in the ascending order from now on
+     */
+    public void setSortedMode(boolean sortedMode) {
+        if (sortedMode) {
+            sortAscending();
+        }
+        this.sortedMode = sortedMode;
+    }
+
+    /**
+     * Checks if the list keeps a hash index of its elements.
+     * @return {@code true} if the list is indexed, otherwise {@code false}
+     */
+    public boolean isIndexed() {
+        return index != null;
+    }
+
+    /**
+     * Turns the hash index of the elements on or off. Turning it off releases the memory the index takes.
+     * @param indexed {@code true} to build and keep the index, {@code false} to drop it
+     */
+    public void setIndexed(boolean indexed) {
+        if (!indexed) {
+            index = null;
+        } else if (index == null) {
+            closeGap();
+            index = new ElementIndex<>();
+            for (int i = 0; i < firstNullIndex; i++) {
+                index.added(values[i], i, true);
+            }
+        }
+    }
+
+    /**
+     * Gets the occurrences of the element from the hash index, rebuilding the stale indexes first.
+     * @param element the element to search for
+     * @return the occurrences or {@code null} if the element is not in the list
+     */
+    private ElementIndex.Occurrences occurrences(E element) {
+        if (index.isStale()) {
+            closeGap();
+            index.rebuild(values, firstNullIndex);
+        }
+        return index.occurrences(element);
+    }
+
+    /**
+     * Checks that the list is not in the sorted mode, before an operation which would break the order.
+     * @param operation name of the operation
+     * @throws UnsupportedOperationException if the list is in the sorted mode
+     */
+    private void checkNotSortedMode(String operation) {
+        if (sortedMode) {
+            throw new UnsupportedOperationException(operation + " is not supported in the sorted mode");
+        }
+    }
 
     /**
      * Checks if the list is empty.
@@ -25,6 +246,10 @@ public class ComparableList<E extends Comparable<E>> {
      * @return {@code true} if the elements are sorted in the ascending order, otherwise {@code false}
      */
     public boolean isSortedAscending() {
+        if (sortedMode) {
+            return true;
+        }
+        closeGap();
         boolean sorted = true;
         for (int i = 0; i < firstNullIndex - 1; i++) {
             if (values[i].compareTo(values[i + 1]) > 0) {
@@ -40,6 +265,7 @@ public class ComparableList<E extends Comparable<E>> {
      * @return {@code true} if the elements are sorted in the descending order, otherwise {@code false}
      */
     public boolean isSortedDescending() {
+        closeGap();
         boolean sorted = true;
         for (int i = 0; i < firstNullIndex - 1; i++) {
             if (values[i].compareTo(values[i + 1]) < 0) {
@@ -51,8 +277,8 @@ public class ComparableList<E extends Comparable<E>> {
     }
 
     /**
-     * Adds the element to the end of the list. If the underlying
-     * array becomes full, then the new array will be created.
+     * Adds the element to the end of the list, or to its place in the order in the sorted mode. If the underlying
+     * array is full, then the new array will be created.
      * @param element the element to be added to the list
      * @return {@code true} in all valid cases, {@code false} in case element is {@code null}
      */
@@ -60,33 +286,63 @@ public class ComparableList<E extends Comparable<E>> {
         if (element == null) {
             return false;
         }
-        values[firstNullIndex++] = element;
+        if (sortedMode) {
+            insert(search(element, true), element);
+            return true;
+        }
+        closeGap();
         if (firstNullIndex == capacity) {
             grow();
         }
+        values[firstNullIndex++] = element;
+        modCount++;
+        if (index != null) {
+            index.added(element, firstNullIndex - 1, true);
+        }
         return true;
     }
 
     /**
-     * Adds the element to the list at the specified index. If the underlying array becomes full,
+     * Adds the element to the list at the specified index. If the underlying array is full,
      * then the new array will be created.
      * @param index the index where the element should be added
      * @param element the element to be added to the list
      * @throws IndexOutOfBoundsException if the index is not within the bounds of the current array
+     * @throws UnsupportedOperationException if the list is in the sorted mode
      */
     public void add(int index, E element) {
         if (index < 0 || index > size()) {
             throw new IndexOutOfBoundsException(String.format("Index %d, Size: %d", index, size()));
         }
+        checkNotSortedMode("Adding at an index");
         if (element == null) {
             return;
         }
-        rightShift(index);
-        values[index] = element;
-        firstNullIndex++;
+        insert(index, element);
+    }
+
+    /**
+     * Inserts the element at the specific index, which is known to be valid.
+     * @param index the index where the element should be added
+     * @param element the element to be added to the list
+     */
+    private void insert(int index, E element) {
         if (firstNullIndex == capacity) {
             grow();
         }
+        if (this.index != null) {
+            this.index.added(element, index, index == firstNullIndex);
+        }
+        if (layout == Layout.GAP_BUFFER) {
+            moveGap(index);
+            values[gapStart++] = element;
+            gapLength--;
+        } else {
+            rightShift(index);
+            values[index] = element;
+        }
+        firstNullIndex++;
+        modCount++;
     }
 
     /**
@@ -101,6 +357,9 @@ public class ComparableList<E extends Comparable<E>> {
                 return 0;
             }
         }
+        if (!sortedMode) {
+            ensureCapacity(firstNullIndex + elements.length);
+        }
         int added = 0;
         for (E element : elements) {
             add(element);
@@ -121,13 +380,19 @@ public class ComparableList<E extends Comparable<E>> {
     }
 
     /**
-     * Clears the list.
+     * Clears the list. The underlying array is kept, so the list can be filled again without growing,
+     * use {@link #trimToSize()} to release it.
      */
-    @SuppressWarnings("unchecked")
     public void clear() {
-        capacity = 10;
+        closeGap();
+        Arrays.fill(values, 0, firstNullIndex, null);
         firstNullIndex = 0;
-        values = (E[]) new Comparable[capacity];
+        modCount++;
+        gapStart = 0;
+        gapLength = 0;
+        if (index != null) {
+            index.clear();
+        }
     }
 
     /**
@@ -136,6 +401,13 @@ public class ComparableList<E extends Comparable<E>> {
      * @return {@code true} if the list contains the element, otherwise {@code false}
      */
     public boolean contains(E element) {
+        if (index != null) {
+            return index.count(element) > 0;
+        }
+        if (sortedMode) {
+            return element != null && sortedIndexOf(element, false) >= 0;
+        }
+        closeGap();
         boolean contains = false;
         for (int i = 0; i < firstNullIndex; i++) {
             if (values[i].equals(element)) {
@@ -153,16 +425,122 @@ public class ComparableList<E extends Comparable<E>> {
      */
     public E get(int index) {
         checkIndex(index);
-        return values[index];
+        return values[physical(index)];
+    }
+
+    /**
+     * Finds the index of the first element which is not less than the key ({@code strict == false}),
+     * or greater than the key ({@code strict == true}). The elements have to be in the ascending order.
+     * @param key the element to search for
+     * @param strict whether the elements equal to the key should be skipped
+     * @return the index between 0 and size, inclusive
+     */
+    private int search(E key, boolean strict) {
+        int from = 0;
+        int to = firstNullIndex;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            int cmp = values[physical(mid)].compareTo(key);
+            if (cmp < 0 || (strict && cmp == 0)) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Searches the sorted list for the first occurrence of the element among those comparing as equal to it.
+     * @param element element to search for
+     * @param identical {@code true} to look for the same instance, {@code false} to look for an equal element
+     * @return the index of the first occurrence of the element, or -1 in case the element was not found
+     */
+    private int sortedIndexOf(E element, boolean identical) {
+        for (int i = search(element, false); i < firstNullIndex; i++) {
+            E value = values[physical(i)];
+            if (value.compareTo(element) != 0) {
+                break;
+            }
+            if (identical ? value == element : value.equals(element)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
-     * If the underlying array is full, creates a new one with double its size and copies the elements into it.
+     * Maps the index of the element to its position in the underlying array, skipping the gap.
+     * @param index the index of the element
+     * @return the position in the underlying array
+     */
+    private int physical(int index) {
+        return index < gapStart ? index : index + gapLength;
+    }
+
+    /**
+     * Moves the gap so that it starts at the specific index. If there is no gap, the elements from the index on
+     * are moved to the end of the underlying array and all the free slots become the gap.
+     * @param index the index the gap should start at
+     */
+    private void moveGap(int index) {
+        if (gapLength == 0) {
+            int tail = firstNullIndex - index;
+            System.arraycopy(values, index, values, capacity - tail, tail);
+            Arrays.fill(values, index, Math.min(firstNullIndex, capacity - tail), null);
+            gapStart = index;
+            gapLength = capacity - firstNullIndex;
+        } else if (index < gapStart) {
+            System.arraycopy(values, index, values, index + gapLength, gapStart - index);
+            Arrays.fill(values, index, Math.min(gapStart, index + gapLength), null);
+            gapStart = index;
+        } else if (index > gapStart) {
+            System.arraycopy(values, gapStart + gapLength, values, gapStart, index - gapStart);
+            Arrays.fill(values, Math.max(index, gapStart + gapLength), index + gapLength, null);
+            gapStart = index;
+        }
+    }
+
+    /**
+     * Moves the elements after the gap to close it, so that the elements are contiguous again.
+     */
+    private void closeGap() {
+        if (gapLength == 0) {
+            return;
+        }
+        int end = firstNullIndex + gapLength;
+        System.arraycopy(values, gapStart + gapLength, values, gapStart, firstNullIndex - gapStart);
+        Arrays.fill(values, Math.max(firstNullIndex, gapStart + gapLength), end, null);
+        gapStart = firstNullIndex;
+        gapLength = 0;
+    }
+
+    /**
+     * If the underlying array is full, creates a new one with the capacity multiplied by the growth factor
+     * and copies the elements into it.
+     * @throws OutOfMemoryError if the list already has the maximum capacity
      */
     private void grow() {
-        @SuppressWarnings("unchecked") E[] another = (E[]) new Comparable[capacity *= 2];
-        System.arraycopy(values, 0, another, 0, values.length);
+        if (capacity == MAX_CAPACITY) {
+            throw new OutOfMemoryError("The list cannot hold more than " + MAX_CAPACITY + " elements");
+        }
+        long grown = Math.max((long) (capacity * growthFactor), capacity + 1L);
+        resize((int) Math.min(MAX_CAPACITY, grown));
+    }
+
+    /**
+     * Creates a new underlying array with the specific capacity and copies only the elements into it,
+     * closing the gap on the way.
+     * @param newCapacity the capacity of the new array, at least the number of elements
+     */
+    private void resize(int newCapacity) {
+        @SuppressWarnings("unchecked") E[] another = (E[]) new Comparable[newCapacity];
+        System.arraycopy(values, 0, another, 0, gapStart);
+        System.arraycopy(values, gapStart + gapLength, another, gapStart, firstNullIndex - gapStart);
         values = another;
+        capacity = newCapacity;
+        gapStart = firstNullIndex;
+        gapLength = 0;
     }
 
     /**
@@ -181,8 +559,9 @@ public class ComparableList<E extends Comparable<E>> {
      * @param index index from which the elements will shift
      */
     private void leftShift(int index) {
-        if (firstNullIndex - index >= 0)
-            System.arraycopy(values, index + 1, values, index, firstNullIndex - index);
+        if (firstNullIndex - index - 1 > 0)
+            System.arraycopy(values, index + 1, values, index, firstNullIndex - index - 1);
+        values[firstNullIndex - 1] = null;
     }
 
     /**
@@ -199,6 +578,19 @@ public class ComparableList<E extends Comparable<E>> {
      * @return the index of the first occurrence of the element, or -1 in case the element was not found
      */
     public int indexOf(E element) {
+        if (index != null) {
+            ElementIndex.Occurrences occurrences = occurrences(element);
+            for (int i = 0; occurrences != null && i < occurrences.size; i++) {
+                if (values[physical(occurrences.indexes[i])] == element) {
+                    return occurrences.indexes[i];
+                }
+            }
+            return -1;
+        }
+        if (sortedMode) {
+            return element == null ? -1 : sortedIndexOf(element, true);
+        }
+        closeGap();
         int index = -1;
         for (int i = 0; i < firstNullIndex; i++) {
             if (values[i] == element) {
@@ -215,6 +607,27 @@ public class ComparableList<E extends Comparable<E>> {
      * @return the index of the last occurrence of the element, or -1 in case the element was not found
      */
     public int lastIndexOf(E element) {
+        if (index != null) {
+            ElementIndex.Occurrences occurrences = occurrences(element);
+            for (int i = occurrences == null ? -1 : occurrences.size - 1; i >= 0; i--) {
+                if (values[physical(occurrences.indexes[i])] == element) {
+                    return occurrences.indexes[i];
+                }
+            }
+            return -1;
+        }
+        if (sortedMode) {
+            if (element == null) {
+                return -1;
+            }
+            for (int i = search(element, true) - 1; i >= 0 && values[physical(i)].compareTo(element) == 0; i--) {
+                if (values[physical(i)] == element) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        closeGap();
         int index = -1;
         for (int i = firstNullIndex - 1; i >= 0; i--) {
             if (values[i] == element) {
@@ -225,6 +638,25 @@ public class ComparableList<E extends Comparable<E>> {
         return index;
     }
 
+    /**
+     * Counts the elements equal to the specific element.
+     * @param element the element to count
+     * @return the number of elements equal to the element
+     */
+    public int frequency(E element) {
+        if (index != null) {
+            return index.count(element);
+        }
+        closeGap();
+        int frequency = 0;
+        for (int i = 0; i < firstNullIndex; i++) {
+            if (values[i].equals(element)) {
+                frequency++;
+            }
+        }
+        return frequency;
+    }
+
     /**
      * Utility method to create the ComparableList with the specific elements.
      * @param elements the elements to add to the instance of ComparableList
@@ -239,11 +671,110 @@ public class ComparableList<E extends Comparable<E>> {
                 return null;
             }
         }
-        ComparableList<E> list = new ComparableList<>();
+        ComparableList<E> list = new ComparableList<>(Math.max(DEFAULT_CAPACITY, elements.length));
         list.addAll(elements);
         return list;
     }
 
+    /**
+     * Merges the lists sorted in the ascending order into a new sorted list, leaving them as they are.
+     * The lists are merged at once by a loser tree, so every element costs about log2(k) comparisons for k lists.
+     * Equal elements keep the order of the lists they come from.
+     * @param lists the lists sorted in the ascending order
+     * @param <E> the type of elements
+     * @return the new list with all the elements in the ascending order
+     * @throws IllegalArgumentException if one of the lists is not sorted in the ascending order
+     */
+    @SafeVarargs
+    public static <E extends Comparable<E>> ComparableList<E> merge(ComparableList<E>... lists) {
+        List<ComparableList<E>> all = new ArrayList<>(lists.length);
+        for (ComparableList<E> list : lists) {
+            all.add(list);
+        }
+        return merge(all, false);
+    }
+
+    /**
+     * Merges the lists sorted in the ascending order into a new sorted list, splitting the work across
+     * the common ForkJoinPool. The output is divided into parts by splitter values sampled from the lists
+     * and the parts are merged as independent tasks.
+     * @param lists the lists sorted in the ascending order
+     * @param <E> the type of elements
+     * @return the new list with all the elements in the ascending order
+     * @throws IllegalArgumentException if one of the lists is not sorted in the ascending order
+     */
+    @SafeVarargs
+    public static <E extends Comparable<E>> ComparableList<E> parallelMerge(ComparableList<E>... lists) {
+        List<ComparableList<E>> all = new ArrayList<>(lists.length);
+        for (ComparableList<E> list : lists) {
+            all.add(list);
+        }
+        return merge(all, true);
+    }
+
+    /**
+     * Merges the sorted lists sequentially or in parallel.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends Comparable<E>> ComparableList<E> merge(List<ComparableList<E>> lists, boolean parallel) {
+        E[][] runs = (E[][]) new Comparable<?>[lists.size()][];
+        int[] from = new int[lists.size()];
+        int[] to = new int[lists.size()];
+        long total = 0;
+        for (int i = 0; i < lists.size(); i++) {
+            ComparableList<E> list = lists.get(i);
+            if (!list.isSortedAscending()) {
+                throw new IllegalArgumentException("List " + i + " is not sorted in the ascending order");
+            }
+            list.closeGap();
+            runs[i] = list.values;
+            to[i] = list.firstNullIndex;
+            total += list.firstNullIndex;
+        }
+        if (total > MAX_CAPACITY) {
+            throw new IllegalArgumentException("The lists have more than " + MAX_CAPACITY + " elements");
+        }
+        ComparableList<E> merged = new ComparableList<>((int) total);
+        if (parallel) {
+            Merging.parallelMerge(runs, from, to, merged.values, Comparator.naturalOrder());
+        } else {
+            Merging.merge(runs, from, to, merged.values, 0, Comparator.naturalOrder());
+        }
+        merged.firstNullIndex = (int) total;
+        return merged;
+    }
+
+    /**
+     * Saves the elements to the file in a compact binary format, replacing its content. Integer, Long and Double
+     * elements are written as fixed-width numbers, String elements as UTF-8 bytes. The sorted mode is saved too.
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the elements are not all Integer, Long, Double or String
+     */
+    public void save(Path file) throws IOException {
+        closeGap();
+        Snapshot.write(values, firstNullIndex, sortedMode, file);
+    }
+
+    /**
+     * Loads the list saved by {@link #save(Path)}. The file is memory-mapped and the elements are decoded
+     * straight into an underlying array of their number, so no element is added one by one.
+     * @param file the file to read
+     * @param <E> the type of elements in the file
+     * @return the list with the elements of the file, in the sorted mode if it was saved in it
+     * @throws IOException if the file cannot be read or is not a saved list
+     */
+    @SuppressWarnings("unchecked")
+    public static <E extends Comparable<E>> ComparableList<E> load(Path file) throws IOException {
+        Snapshot.Content content = Snapshot.read(file);
+        ComparableList<E> list = new ComparableList<>(0);
+        list.values = (E[]) content.values();
+        list.capacity = list.values.length;
+        list.firstNullIndex = list.values.length;
+        list.sortedMode = content.sorted();
+        return list;
+    }
+
     /**
      * Gets the maximum element from the list.
      * @return the maximum element or {@code null} if the list is empty
@@ -253,6 +784,10 @@ public class ComparableList<E extends Comparable<E>> {
             System.out.println("The list is empty!");
             return null;
         }
+        if (sortedMode) {
+            return values[physical(firstNullIndex - 1)];
+        }
+        closeGap();
         E max = values[0];
         for (int i = 1; i < firstNullIndex; i++) {
             if (values[i].compareTo(max) > 0) {
@@ -271,6 +806,10 @@ public class ComparableList<E extends Comparable<E>> {
             System.out.println("The list is empty!");
             return null;
         }
+        if (sortedMode) {
+            return values[physical(0)];
+        }
+        closeGap();
         E min = values[0];
         for (int i = 1; i < firstNullIndex; i++) {
             if (values[i].compareTo(min) < 0) {
@@ -289,19 +828,21 @@ public class ComparableList<E extends Comparable<E>> {
             System.out.println("The list is empty!");
             return null;
         }
-        return values[(int) (Math.random() * size())];
+        return values[physical((int) (Math.random() * size()))];
     }
 
     /**
      * Reverses the list.
+     * @throws UnsupportedOperationException if the list is in the sorted mode
      */
     public void reverse() {
-        @SuppressWarnings("unchecked") E[] another = (E[]) new Comparable[capacity];
-        int end = firstNullIndex - 1;
-        for (int i = 0; i < firstNullIndex; i++) {
-            another[end--] = values[i];
+        checkNotSortedMode("Reversing");
+        closeGap();
+        if (index != null) {
+            index.moved();
         }
-        values = another;
+        Sorting.reverse(values, 0, firstNullIndex);
+        modCount++;
     }
 
     /**
@@ -310,12 +851,18 @@ public class ComparableList<E extends Comparable<E>> {
      * @return {@code true} if the element was removed, otherwise {@code false}
      */
     public boolean remove(E element) {
+        if (sortedMode) {
+            int index = element == null ? -1 : sortedIndexOf(element, false);
+            if (index >= 0) {
+                remove(index);
+            }
+            return index >= 0;
+        }
+        closeGap();
         boolean removed = false;
         for (int i = 0; i < firstNullIndex; i++) {
             if (values[i].equals(element)) {
-                values[i] = null;
-                leftShift(i);
-                firstNullIndex--;
+                remove(i);
                 removed = true;
                 break;
             }
@@ -330,42 +877,87 @@ public class ComparableList<E extends Comparable<E>> {
      */
     public E remove(int index) {
         checkIndex(index);
-        E removed = values[index];
-        values[index] = null;
-        leftShift(index);
+        if (this.index != null) {
+            this.index.removed(get(index), index, index == firstNullIndex - 1);
+        }
+        E removed;
+        if (layout == Layout.GAP_BUFFER) {
+            moveGap(index);
+            removed = values[gapStart + gapLength];
+            values[gapStart + gapLength++] = null;
+        } else {
+            removed = values[index];
+            values[index] = null;
+            leftShift(index);
+        }
         firstNullIndex--;
+        modCount++;
         return removed;
     }
 
     /**
-     * Removes all the occurrences of the specific elements from the list.
+     * Removes all the occurrences of the specific elements from the list. The list is compacted in a single pass,
+     * testing every element against a hash set of the elements to be removed.
      * @param elements elements to be removed
      * @return the number of elements removed
      */
     @SafeVarargs
     public final int removeAll(E... elements) {
-        int removed = 0;
+        if (elements.length == 1) {
+            E element = elements[0];
+            return element == null ? 0 : removeIf(element::equals);
+        }
+        Set<E> remove = new HashSet<>();
         for (E element : elements) {
-            removed += removeAllOccurrences(element);
+            remove.add(element);
         }
-        return removed;
+        return removeIf(remove::contains);
     }
 
     /**
-     * Removes all occurrences of the specific element from the list.
-     * @param element the element to be removed
+     * Removes all the elements which are not among the specific elements. The list is compacted in a single pass,
+     * testing every element against a hash set of the elements to be kept.
+     * @param elements elements to be kept
      * @return the number of elements removed
      */
-    private int removeAllOccurrences(E element) {
-        int removed = 0;
-        for (int i = firstNullIndex - 1; i >= 0; i--) {
-            if (values[i].equals(element)) {
-                values[i] = null;
-                leftShift(i);
-                removed++;
+    @SafeVarargs
+    public final int retainAll(E... elements) {
+        Set<E> retain = new HashSet<>();
+        for (E element : elements) {
+            retain.add(element);
+        }
+        return removeIf(element -> !retain.contains(element));
+    }
+
+    /**
+     * Removes all the elements satisfying the predicate. The kept elements are moved towards the beginning
+     * of the list in a single pass, so the whole removal takes linear time.
+     * @param filter the predicate which returns {@code true} for the elements to be removed
+     * @return the number of elements removed
+     */
+    public int removeIf(Predicate<? super E> filter) {
+        closeGap();
+        int kept = 0;
+        int i = 0;
+        int removed;
+        try {
+            for (; i < firstNullIndex; i++) {
+                E value = values[i];
+                if (!filter.test(value)) {
+                    values[kept++] = value;
+                } else if (index != null) {
+                    index.removed(value, i, false);
+                }
             }
+        } finally {
+            // in case the predicate throws, the untested elements are kept and the tested ones stay removed
+            System.arraycopy(values, i, values, kept, firstNullIndex - i);
+            kept += firstNullIndex - i;
+            Arrays.fill(values, kept, firstNullIndex, null);
+            removed = firstNullIndex - kept;
+            firstNullIndex = kept;
+            modCount++;
         }
-        firstNullIndex -= removed;
         return removed;
     }
 
@@ -374,6 +966,7 @@ public class ComparableList<E extends Comparable<E>> {
      * @return list as an array of objects
      */
     public Object[] toArray() {
+        closeGap();
         Object[] another = new Object[size()];
         if (firstNullIndex >= 0)
             System.arraycopy(values, 0, another, 0, firstNullIndex);
@@ -385,11 +978,18 @@ public class ComparableList<E extends Comparable<E>> {
      * @param index index to be set
      * @param value value to be set to the element
      * @return the old element
+     * @throws UnsupportedOperationException if the list is in the sorted mode
      */
     public E set(int index, E value) {
         checkIndex(index);
-        E old = values[index];
-        values[index] = value;
+        checkNotSortedMode("Setting an element");
+        int position = physical(index);
+        E old = values[position];
+        values[position] = value;
+        modCount++;
+        if (this.index != null) {
+            this.index.replaced(old, value, index);
+        }
         return old;
     }
 
@@ -397,43 +997,421 @@ public class ComparableList<E extends Comparable<E>> {
      * Swaps two elements in the list.
      * @param i the first element
      * @param j the second element
+     * @throws UnsupportedOperationException if the list is in the sorted mode
      */
     public void swap(int i, int j) {
         checkIndex(i);
         checkIndex(j);
+        checkNotSortedMode("Swapping");
+        if (index != null) {
+            index.replaced(values[physical(i)], values[physical(j)], i);
+            index.replaced(values[physical(j)], values[physical(i)], j);
+        }
+        i = physical(i);
+        j = physical(j);
+        modCount++;
         E temp = values[i];
         values[i] = values[j];
         values[j] = temp;
     }
 
     /**
-     * Sorts the list in the ascending order.
+     * Sorts the list in the ascending order. The sort is stable and takes advantage of already ordered runs,
+     * a list that is already sorted is left untouched.
      */
     public void sortAscending() {
-        for (int i = 0; i < firstNullIndex - 1; i++) {
-            for (int j = 0; j < firstNullIndex - i - 1; j++) {
-                if (values[j].compareTo(values[j + 1]) > 0) {
-                    E temp = values[j];
-                    values[j] = values[j + 1];
-                    values[j + 1] = temp;
-                }
-            }
+        if (isSortedAscending()) {
+            return;
+        }
+        Sorting.sort(values, 0, firstNullIndex, Comparator.naturalOrder());
+        modCount++;
+        if (index != null) {
+            index.moved();
         }
     }
 
     /**
-     * Sorts the list in the descending order.
+     * Sorts the list in the descending order. The sort is stable and takes advantage of already ordered runs,
+     * a list that is already sorted is left untouched.
+     * @throws UnsupportedOperationException if the list is in the sorted mode
      */
     public void sortDescending() {
-        for (int i = 0; i < firstNullIndex - 1; i++) {
-            for (int j = 0; j < firstNullIndex - i - 1; j++) {
-                if (values[j].compareTo(values[j + 1]) < 0) {
-                    E temp = values[j];
-                    values[j] = values[j + 1];
-                    values[j + 1] = temp;
-                }
+        checkNotSortedMode("Sorting in the descending order");
+        if (isSortedDescending()) {
+            return;
+        }
+        Sorting.sort(values, 0, firstNullIndex, Comparator.reverseOrder());
+        modCount++;
+        if (index != null) {
+            index.moved();
+        }
+    }
+
+    /**
+     * Sorts the list in the ascending order, splitting the work across the common ForkJoinPool.
+     * Small lists are sorted sequentially.
+     */
+    public void parallelSortAscending() {
+        if (isSortedAscending()) {
+            return;
+        }
+        Sorting.parallelSort(values, 0, firstNullIndex, Comparator.naturalOrder());
+        modCount++;
+        if (index != null) {
+            index.moved();
+        }
+    }
+
+    /**
+     * Sorts the list in the descending order, splitting the work across the common ForkJoinPool.
+     * Small lists are sorted sequentially.
+     * @throws UnsupportedOperationException if the list is in the sorted mode
+     */
+    public void parallelSortDescending() {
+        checkNotSortedMode("Sorting in the descending order");
+        if (isSortedDescending()) {
+            return;
+        }
+        Sorting.parallelSort(values, 0, firstNullIndex, Comparator.reverseOrder());
+        modCount++;
+        if (index != null) {
+            index.moved();
+        }
+    }
+
+    /**
+     * Computes the number of elements, the minimum, the maximum and the sortedness in both directions
+     * in a single pass over the list.
+     * @return the statistics of the list
+     */
+    public Statistics<E> stats() {
+        if (sortedMode && firstNullIndex > 0) {
+            E first = values[physical(0)];
+            E last = values[physical(firstNullIndex - 1)];
+            return new Statistics<>(firstNullIndex, first, last, first, last, true, first.compareTo(last) == 0);
+        }
+        closeGap();
+        return Statistics.of(values, 0, firstNullIndex);
+    }
+
+    /**
+     * Computes the same statistics as {@link #stats()}, splitting the list across the common ForkJoinPool.
+     * @return the statistics of the list
+     */
+    public Statistics<E> parallelStats() {
+        if (sortedMode) {
+            return stats();
+        }
+        closeGap();
+        return Statistics.parallel(values, 0, firstNullIndex);
+    }
+
+    /**
+     * Gets the k greatest elements using a bounded heap, without sorting the list.
+     * @param k the number of elements
+     * @return a new list with at most k greatest elements, from the greatest to the smallest
+     * @throws IllegalArgumentException if k is negative
+     */
+    public ComparableList<E> topK(int k) {
+        return select(k, Comparator.naturalOrder(), false);
+    }
+
+    /**
+     * Gets the k smallest elements using a bounded heap, without sorting the list.
+     * @param k the number of elements
+     * @return a new list with at most k smallest elements, from the smallest to the greatest
+     * @throws IllegalArgumentException if k is negative
+     */
+    public ComparableList<E> bottomK(int k) {
+        return select(k, Comparator.reverseOrder(), false);
+    }
+
+    /**
+     * Gets the k greatest elements, splitting the list across the common ForkJoinPool.
+     * @param k the number of elements
+     * @return a new list with at most k greatest elements, from the greatest to the smallest
+     * @throws IllegalArgumentException if k is negative
+     */
+    public ComparableList<E> parallelTopK(int k) {
+        return select(k, Comparator.naturalOrder(), true);
+    }
+
+    /**
+     * Gets the k smallest elements, splitting the list across the common ForkJoinPool.
+     * @param k the number of elements
+     * @return a new list with at most k smallest elements, from the smallest to the greatest
+     * @throws IllegalArgumentException if k is negative
+     */
+    public ComparableList<E> parallelBottomK(int k) {
+        return select(k, Comparator.reverseOrder(), true);
+    }
+
+    /**
+     * Selects the k greatest elements in the specific order. In the sorted mode they are read from the ends.
+     * @param k the number of elements
+     * @param comparator the order deciding which elements are the greatest
+     * @param parallel whether the work should be split across the common ForkJoinPool
+     * @return a new list with the selected elements, from the greatest to the smallest in the specific order
+     */
+    private ComparableList<E> select(int k, Comparator<E> comparator, boolean parallel) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        ComparableList<E> selected = new ComparableList<>(Math.min(k, firstNullIndex));
+        if (sortedMode && firstNullIndex > 0) {
+            boolean fromEnd = comparator.compare(values[physical(0)], values[physical(firstNullIndex - 1)]) < 0;
+            for (int i = 0; i < Math.min(k, firstNullIndex); i++) {
+                selected.add(values[physical(fromEnd ? firstNullIndex - 1 - i : i)]);
+            }
+            return selected;
+        }
+        closeGap();
+        E[] top = parallel ? Selection.parallelTop(values, 0, firstNullIndex, k, comparator)
+                           : Selection.top(values, 0, firstNullIndex, k, comparator);
+        for (E element : top) {
+            selected.add(element);
+        }
+        return selected;
+    }
+
+    /**
+     * Gets the element which would be at the specific index if the list was sorted in the ascending order,
+     * leaving the list as it is. The elements are copied and the rank is found by introselect in expected
+     * O(n) time; in the sorted mode the element is read directly.
+     * @param k the index in the sorted order, 0 for the minimum
+     * @return the element of rank k
+     * @throws IndexOutOfBoundsException if k is not within the bounds of the list
+     */
+    public E nthElement(int k) {
+        checkIndex(k);
+        if (sortedMode) {
+            return values[physical(k)];
+        }
+        closeGap();
+        E[] copy = Arrays.copyOf(values, firstNullIndex);
+        Selection.select(copy, 0, copy.length, k, Comparator.naturalOrder(), null);
+        return copy[k];
+    }
+
+    /**
+     * Gets the median, the lower one of the two middle elements if their number is even.
+     * @return the median or {@code null} if the list is empty
+     */
+    public E median() {
+        return percentile(50);
+    }
+
+    /**
+     * Gets the p-th percentile by the nearest-rank method: the smallest element such that at least p percent
+     * of the elements are less than or equal to it. Use {@link #percentiles()} to ask for several of them.
+     * @param p the percentile, from 0 to 100
+     * @return the percentile or {@code null} if the list is empty
+     * @throws IllegalArgumentException if p is not within 0 and 100
+     */
+    public E percentile(double p) {
+        if (!(p >= 0 && p <= 100)) {
+            throw new IllegalArgumentException("Percentile must be within 0 and 100: " + p);
+        }
+        if (size() == 0) {
+            System.out.println("The list is empty!");
+            return null;
+        }
+        return nthElement(Percentiles.rank(p, firstNullIndex));
+    }
+
+    /**
+     * Creates a snapshot of the elements for answering many order-statistics queries, so that p50, p90 and p99
+     * are found without sorting or copying the elements again for each of them.
+     * @return the snapshot of the elements
+     */
+    public Percentiles<E> percentiles() {
+        closeGap();
+        return new Percentiles<>(Arrays.copyOf(values, firstNullIndex), sortedMode);
+    }
+
+    /**
+     * Creates a new list with the elements greater than or equal to {@code from} and less than {@code to},
+     * in the order they appear in this list. In the sorted mode the range is found by binary search
+     * and the new list is in the sorted mode as well.
+     * @param from the lower bound, inclusive
+     * @param to the upper bound, exclusive
+     * @return the list with the elements within the range
+     */
+    public ComparableList<E> subRange(E from, E to) {
+        ComparableList<E> range = new ComparableList<>(layout);
+        if (sortedMode) {
+            int start = search(from, false);
+            int end = Math.max(start, search(to, false));
+            for (int i = start; i < end; i++) {
+                range.add(values[physical(i)]);
+            }
+            range.sortedMode = true;
+            return range;
+        }
+        closeGap();
+        for (int i = 0; i < firstNullIndex; i++) {
+            if (values[i].compareTo(from) >= 0 && values[i].compareTo(to) < 0) {
+                range.add(values[i]);
+            }
+        }
+        return range;
+    }
+
+    /**
+     * Counts the elements greater than or equal to {@code from} and less than {@code to}.
+     * In the sorted mode it takes two binary searches.
+     * @param from the lower bound, inclusive
+     * @param to the upper bound, exclusive
+     * @return the number of elements within the range
+     */
+    public int countBetween(E from, E to) {
+        if (sortedMode) {
+            return Math.max(0, search(to, false) - search(from, false));
+        }
+        closeGap();
+        int count = 0;
+        for (int i = 0; i < firstNullIndex; i++) {
+            if (values[i].compareTo(from) >= 0 && values[i].compareTo(to) < 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Creates a view of the range of the list, which reads the elements from the list without copying them.
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @return the view of the range
+     * @throws IndexOutOfBoundsException if the range is not within the bounds of the list
+     */
+    public ListView<E> subList(int from, int to) {
+        return ListView.range(this, from, to);
+    }
+
+    /**
+     * Creates a view of the list in the reverse order, without copying or reversing the elements.
+     * @return the reversed view
+     */
+    public ListView<E> reversedView() {
+        return ListView.reversed(this);
+    }
+
+    /**
+     * Creates a view of the list in the ascending order, leaving the list as it is. The elements are copied
+     * on the first access and sorted only as far as they are read, so reading the first k of them
+     * takes expected O(n + k log k) time instead of a full sort.
+     * @return the sorted view
+     */
+    public ListView<E> sortedView() {
+        return ListView.sorted(this);
+    }
+
+    /**
+     * Gets the number of changes made to the list structure, so that the views can detect them.
+     * @return the number of changes
+     */
+    int modCount() {
+        return modCount;
+    }
+
+    /**
+     * Creates an iterator over the elements, which fails fast with {@link ConcurrentModificationException}
+     * if the list is changed other than through the iterator.
+     * @return the iterator over the elements in the list order
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Creates a spliterator over the elements, which splits the underlying array into ranges.
+     * @return the ordered, sized and subsized spliterator over the elements
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return new ArraySpliterator(0, -1, 0);
+    }
+
+    /**
+     * Creates a sequential stream of the elements, reading them directly from the underlying array.
+     * @return the stream of the elements
+     */
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Creates a parallel stream of the elements, which splits the underlying array into ranges.
+     * @return the parallel stream of the elements
+     */
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Performs the action for every element, in the list order.
+     * @param action the action to be performed
+     * @throws ConcurrentModificationException if the action changes the list
+     */
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        closeGap();
+        int expectedModCount = modCount;
+        E[] elements = values;
+        for (int i = 0; i < firstNullIndex && modCount == expectedModCount; i++) {
+            action.accept(elements[i]);
+        }
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Creates a new list with the results of applying the function to every element.
+     * @param mapper the function to apply
+     * @param <R> type of elements of the new list
+     * @return the list of the results, in the list order
+     */
+    public <R extends Comparable<R>> ComparableList<R> map(Function<? super E, ? extends R> mapper) {
+        closeGap();
+        ComparableList<R> mapped = new ComparableList<>(firstNullIndex);
+        for (int i = 0; i < firstNullIndex; i++) {
+            mapped.add(mapper.apply(values[i]));
+        }
+        return mapped;
+    }
+
+    /**
+     * Creates a new list with the elements satisfying the predicate.
+     * @param filter the predicate which returns {@code true} for the elements to be kept
+     * @return the list of the elements satisfying the predicate, in the list order
+     */
+    public ComparableList<E> filter(Predicate<? super E> filter) {
+        closeGap();
+        ComparableList<E> filtered = new ComparableList<>();
+        for (int i = 0; i < firstNullIndex; i++) {
+            if (filter.test(values[i])) {
+                filtered.add(values[i]);
             }
         }
+        return filtered;
+    }
+
+    /**
+     * Combines the elements one by one with the accumulator, starting with the identity.
+     * @param identity the initial value, returned for an empty list
+     * @param accumulator the function combining the result so far with the next element
+     * @return the result of combining all the elements
+     */
+    public E reduce(E identity, BinaryOperator<E> accumulator) {
+        closeGap();
+        E result = identity;
+        for (int i = 0; i < firstNullIndex; i++) {
+            result = accumulator.apply(result, values[i]);
+        }
+        return result;
     }
 
     /**
@@ -442,10 +1420,128 @@ public class ComparableList<E extends Comparable<E>> {
      */
     @Override
     public String toString() {
+        closeGap();
         StringJoiner joiner = new StringJoiner(", ", "[", "]");
         for (int i = 0; i < firstNullIndex; i++) {
             joiner.add(values[i].toString());
         }
         return joiner.toString();
     }
+
+    /**
+     * Iterator over the elements, going through the gap if there is one.
+     */
+    private class Itr implements Iterator<E> {
+        private int cursor;                                            // index of the next element
+        private int last = -1;                                         // index of the last element returned
+        private int expectedModCount = modCount;                       // detects changes not made by the iterator
+
+        @Override
+        public boolean hasNext() {
+            return cursor < firstNullIndex;
+        }
+
+        @Override
+        public E next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (cursor >= firstNullIndex) {
+                throw new NoSuchElementException();
+            }
+            last = cursor++;
+            return values[physical(last)];
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            ComparableList.this.remove(last);
+            cursor = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Spliterator over a range of the underlying array. The gap is closed and the range is bound
+     * on the first use, so the spliterator reflects the changes made before it is used.
+     */
+    private class ArraySpliterator implements Spliterator<E> {
+        private int index;                                             // the next index to visit
+        private int fence;                                             // index past the range, -1 until bound
+        private int expectedModCount;                                  // detects changes of the list
+
+        ArraySpliterator(int index, int fence, int expectedModCount) {
+            this.index = index;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        /**
+         * Binds the range to the current elements on the first use.
+         */
+        private int getFence() {
+            if (fence < 0) {
+                closeGap();
+                expectedModCount = modCount;
+                fence = firstNullIndex;
+            }
+            return fence;
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int hi = getFence();
+            int mid = (index + hi) >>> 1;
+            if (index >= mid) {
+                return null;
+            }
+            ArraySpliterator prefix = new ArraySpliterator(index, mid, expectedModCount);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            int hi = getFence();
+            if (index >= hi) {
+                return false;
+            }
+            E element = values[index++];
+            action.accept(element);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            int hi = getFence();
+            E[] elements = values;
+            for (int i = index; i < hi; i++) {
+                action.accept(elements[i]);
+            }
+            index = hi;
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
 }
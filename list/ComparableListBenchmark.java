@@ -0,0 +1,202 @@
+package list;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the operations of ComparableList across list sizes and element types.
+ * Run with the GC profiler, so that the allocation rates are reported next to the times.
+ * Operations which would change the list for the next invocation either restore it
+ * (insert and remove are paired) or work on a fresh copy prepared before each invocation.
+ * The allocation of the copy is counted in those benchmarks, compare them against {@code add}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ComparableListBenchmark {
+    @Param({"10", "1000", "100000", "10000000"})
+    private int size;
+    @Param({"Integer", "Long", "Double", "String"})
+    private String type;
+    @Param({"ARRAY", "GAP_BUFFER"})
+    private ComparableList.Layout layout;
+    private Comparable[] elements;                                     // elements the lists are made of
+    private Comparable missing;                                        // element that is not in the list
+    private Comparable middle;                                         // element in the middle of the list
+    private ComparableList list;                                       // list shared by read only benchmarks
+
+    @Setup
+    public void setUp() {
+        elements = elements(type, size, new Random(42));
+        missing = elements(type, 1, new Random(-1))[0];
+        middle = elements[size / 2];
+        list = copy(elements, layout);
+    }
+
+    /**
+     * Creates random elements of the specific type.
+     * @param type simple name of the element class
+     * @param size number of elements
+     * @param random source of the values
+     * @return array of random elements
+     */
+    static Comparable[] elements(String type, int size, Random random) {
+        Comparable[] elements = new Comparable[size];
+        for (int i = 0; i < size; i++) {
+            switch (type) {
+                case "Integer" -> elements[i] = random.nextInt();
+                case "Long" -> elements[i] = random.nextLong();
+                case "Double" -> elements[i] = random.nextDouble();
+                case "String" -> elements[i] = Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+                default -> throw new IllegalArgumentException("Unknown element type " + type);
+            }
+        }
+        return elements;
+    }
+
+    /**
+     * Creates the list with the specific elements and layout.
+     */
+    static ComparableList copy(Comparable[] elements, ComparableList.Layout layout) {
+        ComparableList list = new ComparableList(layout);
+        for (Comparable element : elements) {
+            list.add(element);
+        }
+        return list;
+    }
+
+    /**
+     * Copy of the list made before every invocation, for the operations that reorder or shrink it.
+     */
+    @State(Scope.Thread)
+    public static class Fresh {
+        private ComparableList list;
+
+        @Setup(Level.Invocation)
+        public void setUp(ComparableListBenchmark benchmark) {
+            list = copy(benchmark.elements, benchmark.layout);
+        }
+    }
+
+    @Benchmark
+    public ComparableList add() {
+        return copy(elements, layout);
+    }
+
+    @Benchmark
+    public Object addAtMiddle() {
+        list.add(size / 2, missing);
+        return list.remove(list.size() - 1);
+    }
+
+    @Benchmark
+    public Object addNearPrevious() {
+        list.add(size / 2, missing);
+        return list.remove(size / 2);
+    }
+
+    @Benchmark
+    public boolean removeElement() {
+        boolean removed = list.remove(middle);
+        list.add(size / 2, middle);
+        return removed;
+    }
+
+    @Benchmark
+    public int removeAll(Fresh fresh) {
+        return fresh.list.removeAll(middle, missing, elements[0]);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return list.contains(missing);
+    }
+
+    @Benchmark
+    public int indexOf() {
+        return list.indexOf(middle);
+    }
+
+    @Benchmark
+    public Comparable max() {
+        return list.max();
+    }
+
+    @Benchmark
+    public Comparable min() {
+        return list.min();
+    }
+
+    @Benchmark
+    public ComparableList reverse() {
+        list.reverse();
+        return list;
+    }
+
+    @Benchmark
+    public ComparableList sortAscending(Fresh fresh) {
+        fresh.list.sortAscending();
+        return fresh.list;
+    }
+
+    @Benchmark
+    public Comparable sortedViewFirstTen() {
+        ListView view = list.sortedView();
+        Comparable last = null;
+        for (int i = 0; i < Math.min(10, size); i++) {
+            last = view.get(i);
+        }
+        return last;
+    }
+
+    @Benchmark
+    public Comparable reversedViewMiddle() {
+        return list.reversedView().get(size / 2);
+    }
+
+    @Benchmark
+    public ComparableList percentilesSnapshot() {
+        return list.percentiles().percentiles(50, 90, 99);
+    }
+
+    @Benchmark
+    public Comparable percentilesBySorting(Fresh fresh) {
+        fresh.list.sortAscending();
+        fresh.list.get(Percentiles.rank(50, size));
+        fresh.list.get(Percentiles.rank(90, size));
+        return fresh.list.get(Percentiles.rank(99, size));
+    }
+
+    @Benchmark
+    public String toStringJoined() {
+        return list.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ComparableListBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -2,6 +2,16 @@ package list;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -46,6 +56,48 @@ public class ComparableListTest {
         assertEquals(100, list.size());
     }
 
+    @Test
+    void capacity() {
+        ComparableList<Integer> sized = new ComparableList<>(1000);
+        assertEquals(1000, sized.getCapacity());
+        for (int i = 0; i < 1000; i++) {
+            sized.add(i);
+        }
+        assertEquals(1000, sized.getCapacity());
+        sized.add(1000);
+        assertEquals(2000, sized.getCapacity());
+        sized.trimToSize();
+        assertEquals(1001, sized.getCapacity());
+        assertEquals(1000, sized.get(1000));
+        sized.ensureCapacity(5000);
+        assertEquals(5000, sized.getCapacity());
+        sized.clear();
+        assertTrue(sized.isEmpty());
+        assertEquals(5000, sized.getCapacity());
+        sized.trimToSize();
+        assertEquals(0, sized.getCapacity());
+        sized.add(0, 7);
+        sized.add(3);
+        assertEquals("[7, 3]", sized.toString());
+
+        ComparableList<Integer> slow = new ComparableList<>(0, 1.5, ComparableList.Layout.GAP_BUFFER);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            slow.add(i / 2, i);
+            expected.add(i / 2, i);
+        }
+        assertEquals(expected.toString(), slow.toString());
+        slow.trimToSize();
+        assertEquals(1000, slow.getCapacity());
+        slow.remove(500);
+        expected.remove(500);
+        slow.add(0, -1);
+        expected.add(0, -1);
+        assertEquals(expected.toString(), slow.toString());
+        assertThrows(IllegalArgumentException.class, () -> new ComparableList<Integer>(-1));
+        assertThrows(IllegalArgumentException.class, () -> new ComparableList<Integer>(10, 1.0, ComparableList.Layout.ARRAY));
+    }
+
     @Test
     void sortingAscending() {
         initRandomly();
@@ -62,6 +114,57 @@ public class ComparableListTest {
         assertTrue(list.isSortedDescending());
     }
 
+    @Test
+    void sortingMillions() {
+        for (int i = 0; i < 2_000_000; i++) {
+            list.add((int) (Math.random() * Integer.MAX_VALUE));
+        }
+        list.sortAscending();
+        assertTrue(list.isSortedAscending());
+        list.sortDescending();
+        assertTrue(list.isSortedDescending());
+        assertEquals(2_000_000, list.size());
+    }
+
+    @Test
+    void parallelSorting() {
+        for (int i = 0; i < 4_000_000; i++) {
+            list.add((int) (Math.random() * 1000));
+        }
+        list.parallelSortAscending();
+        assertTrue(list.isSortedAscending());
+        list.parallelSortDescending();
+        assertTrue(list.isSortedDescending());
+        assertEquals(4_000_000, list.size());
+    }
+
+    @Test
+    void sortingRuns() {
+        for (int i = 0; i < 100_000; i++) {
+            list.add(i % 1000);
+        }
+        list.sortAscending();
+        assertTrue(list.isSortedAscending());
+        list.reverse();
+        list.sortAscending();
+        assertTrue(list.isSortedAscending());
+    }
+
+    @Test
+    void sortingStable() {
+        ComparableList<Entry> entries = new ComparableList<>();
+        for (int i = 0; i < 100_000; i++) {
+            entries.add(new Entry((int) (Math.random() * 100), i));
+        }
+        entries.parallelSortAscending();
+        assertTrue(entries.isSortedAscending());
+        for (int i = 1; i < entries.size(); i++) {
+            Entry previous = entries.get(i - 1);
+            Entry current = entries.get(i);
+            assertTrue(previous.key < current.key || previous.order < current.order);
+        }
+    }
+
     @Test
     void max() {
         assertNull(list.max());
@@ -118,6 +221,9 @@ public class ComparableListTest {
         assertTrue(list.isSortedDescending());
         list.reverse();
         assertTrue(list.isSortedAscending());
+        ComparableList<Integer> odd = ComparableList.of(1, 2, 3, 4, 5);
+        odd.reverse();
+        assertEquals("[5, 4, 3, 2, 1]", odd.toString());
     }
 
     @Test
@@ -145,6 +251,394 @@ public class ComparableListTest {
         assertEquals(10, ten);
     }
 
+    @Test
+    void removingMany() {
+        ComparableList<Integer> test = ComparableList.of(1, 2, 3, 1, 2, 3, 4, 5);
+        assertEquals(5, test.removeAll(1, 3, 5, 7));
+        assertEquals("[2, 2, 4]", test.toString());
+        assertEquals(2, test.retainAll(4, 8));
+        assertEquals("[4]", test.toString());
+    }
+
+    @Test
+    void removingIf() {
+        for (int i = 0; i < 3_000_000; i++) {
+            list.add(i % 10);
+        }
+        assertEquals(1_500_000, list.removeIf(value -> value % 2 == 0));
+        assertEquals(1_500_000, list.size());
+        assertFalse(list.contains(4));
+        assertEquals(900_000, list.removeAll(1, 3, 5));
+        assertEquals(600_000, list.size());
+        assertEquals(300_000, list.retainAll(7));
+        assertEquals(300_000, list.size());
+        assertEquals(7, list.max());
+        assertEquals(7, list.min());
+
+        ComparableList<Integer> failing = ComparableList.of(1, 2, 3, 4, 5, 6);
+        failing.setIndexed(true);
+        assertThrows(IllegalStateException.class, () -> failing.removeIf(value -> {
+            if (value == 4) {
+                throw new IllegalStateException();
+            }
+            return value % 2 == 1;
+        }));
+        assertEquals(4, failing.size());
+        assertEquals("[2, 4, 5, 6]", failing.toString());
+        assertEquals(6, failing.max());
+        assertEquals(2, failing.min());
+        assertEquals(-1, failing.indexOf(1));
+        assertEquals(2, failing.indexOf(5));
+    }
+
+    @Test
+    void gapBuffer() {
+        ComparableList<Integer> gap = new ComparableList<>(ComparableList.Layout.GAP_BUFFER);
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(7);
+        int cursor = 0;
+        for (int i = 0; i < 200_000; i++) {
+            int operation = random.nextInt(10);
+            cursor = Math.max(0, Math.min(expected.size(), cursor + random.nextInt(5) - 2));
+            if (operation < 6) {
+                gap.add(cursor, i);
+                expected.add(cursor, i);
+            } else if (operation < 8 && cursor < expected.size()) {
+                assertEquals(expected.remove(cursor), gap.remove(cursor));
+            } else if (operation == 8) {
+                gap.add(i);
+                expected.add(i);
+            } else if (cursor < expected.size()) {
+                assertEquals(expected.get(cursor), gap.get(cursor));
+                gap.set(cursor, -i);
+                expected.set(cursor, -i);
+            }
+        }
+        assertEquals(expected.size(), gap.size());
+        assertEquals(expected.toString(), gap.toString());
+        gap.add(gap.size() / 2, 5);
+        gap.setLayout(ComparableList.Layout.ARRAY);
+        gap.sortAscending();
+        assertTrue(gap.isSortedAscending());
+    }
+
+    @Test
+    void sortedMode() {
+        initRandomly();
+        list.setSortedMode(true);
+        assertTrue(list.isSortedMode());
+        Random random = new Random(3);
+        for (int i = 0; i < 10_000; i++) {
+            list.add(random.nextInt(1000));
+        }
+        list.setSortedMode(false);
+        assertTrue(list.isSortedAscending());
+        list.setSortedMode(true);
+        assertEquals(list.get(0), list.min());
+        assertEquals(list.get(list.size() - 1), list.max());
+        Integer element = list.get(5000);
+        assertTrue(list.contains(element));
+        assertEquals(element, list.get(list.indexOf(element)));
+        assertTrue(list.lastIndexOf(element) >= list.indexOf(element));
+        assertFalse(list.contains(-1));
+        assertThrows(UnsupportedOperationException.class, () -> list.add(0, 5));
+        assertThrows(UnsupportedOperationException.class, () -> list.swap(0, 1));
+        assertThrows(UnsupportedOperationException.class, list::reverse);
+        assertTrue(list.remove(element));
+        assertEquals(11_000 - 1, list.size());
+    }
+
+    @Test
+    void ranges() {
+        ComparableList<Integer> test = ComparableList.of(5, 1, 9, 3, 7, 3, 10);
+        assertEquals(4, test.countBetween(3, 9));
+        assertEquals("[5, 3, 7, 3]", test.subRange(3, 9).toString());
+        test.setSortedMode(true);
+        assertEquals(4, test.countBetween(3, 9));
+        assertEquals("[3, 3, 5, 7]", test.subRange(3, 9).toString());
+        assertTrue(test.subRange(3, 9).isSortedMode());
+        assertEquals(0, test.countBetween(9, 3));
+        assertEquals(0, test.subRange(11, 20).size());
+    }
+
+    @Test
+    void statistics() {
+        Statistics<Integer> empty = list.stats();
+        assertEquals(0, empty.getCount());
+        assertNull(empty.getMin());
+        for (int i = 0; i < 3_000_000; i++) {
+            list.add((int) (Math.random() * Integer.MAX_VALUE));
+        }
+        Statistics<Integer> stats = list.stats();
+        assertEquals(list.size(), stats.getCount());
+        assertEquals(list.min(), stats.getMin());
+        assertEquals(list.max(), stats.getMax());
+        assertFalse(stats.isSortedAscending());
+        assertEquals(stats.toString(), list.parallelStats().toString());
+        list.sortDescending();
+        assertTrue(list.parallelStats().isSortedDescending());
+        assertFalse(list.parallelStats().isSortedAscending());
+    }
+
+    @Test
+    void topK() {
+        for (int i = 0; i < 1_000_000; i++) {
+            list.add((int) ((long) i * 7919 % 1_000_000));
+        }
+        assertEquals("[999999, 999998, 999997]", list.topK(3).toString());
+        assertEquals("[0, 1, 2]", list.bottomK(3).toString());
+        assertEquals(list.topK(100).toString(), list.parallelTopK(100).toString());
+        assertEquals(list.bottomK(100).toString(), list.parallelBottomK(100).toString());
+        assertEquals(0, list.topK(0).size());
+        assertEquals(3, test.topK(3).size());
+        list.setSortedMode(true);
+        assertEquals("[999999, 999998, 999997]", list.topK(3).toString());
+        assertEquals("[0, 1, 2]", list.bottomK(3).toString());
+        assertThrows(IllegalArgumentException.class, () -> list.topK(-1));
+    }
+
+    @Test
+    void indexed() {
+        ComparableList<Integer> indexed = new ComparableList<>(ComparableList.Layout.GAP_BUFFER);
+        indexed.setIndexed(true);
+        Random random = new Random(11);
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt(100);
+            switch (random.nextInt(8)) {
+                case 0, 1, 2 -> {
+                    list.add(value);
+                    indexed.add(value);
+                }
+                case 3 -> {
+                    int at = random.nextInt(list.size() + 1);
+                    list.add(at, value);
+                    indexed.add(at, value);
+                }
+                case 4 -> assertEquals(list.remove((Integer) value), indexed.remove((Integer) value));
+                case 5 -> {
+                    if (!list.isEmpty()) {
+                        int at = random.nextInt(list.size());
+                        assertEquals(list.set(at, value), indexed.set(at, value));
+                        int other = random.nextInt(list.size());
+                        list.swap(at, other);
+                        indexed.swap(at, other);
+                    }
+                }
+                case 6 -> {
+                    if (random.nextInt(100) == 0) {
+                        list.sortAscending();
+                        indexed.sortAscending();
+                        list.reverse();
+                        indexed.reverse();
+                    }
+                }
+                default -> {
+                    assertEquals(list.contains(value), indexed.contains(value));
+                    assertEquals(list.indexOf(value), indexed.indexOf(value));
+                    assertEquals(list.lastIndexOf(value), indexed.lastIndexOf(value));
+                    assertEquals(list.frequency(value), indexed.frequency(value));
+                }
+            }
+        }
+        assertEquals(list.toString(), indexed.toString());
+        indexed.removeIf(value -> value < 50);
+        assertEquals(0, indexed.frequency(10));
+        assertEquals(-1, indexed.indexOf(10));
+        indexed.setIndexed(false);
+        assertFalse(indexed.isIndexed());
+        assertEquals(0, indexed.frequency(10));
+    }
+
+    @Test
+    void iterating() {
+        initRandomly();
+        int count = 0;
+        for (Integer element : list) {
+            assertEquals(list.get(count++), element);
+        }
+        assertEquals(list.size(), count);
+        Iterator<Integer> iterator = list.iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(999, list.size());
+        assertThrows(ConcurrentModificationException.class, () -> {
+            for (Integer element : list) {
+                list.add(element);
+            }
+        });
+        assertThrows(ConcurrentModificationException.class, () -> list.forEach(list::add));
+    }
+
+    @Test
+    void streaming() {
+        for (int i = 0; i < 2_000_000; i++) {
+            list.add(i % 1000);
+        }
+        long sum = 999L * 1000 / 2 * 2000;
+        assertEquals(sum, list.stream().mapToLong(Integer::longValue).sum());
+        assertEquals(sum, list.parallelStream().mapToLong(Integer::longValue).sum());
+        assertEquals(list.size(), list.spliterator().getExactSizeIfKnown());
+        assertEquals(1000, list.parallelStream().distinct().count());
+    }
+
+    @Test
+    void bulkOperations() {
+        ComparableList<Integer> test = ComparableList.of(1, 2, 3, 4, 5);
+        assertEquals("[2, 4, 6, 8, 10]", test.map(value -> value * 2).toString());
+        assertEquals("[1, 3, 5]", test.filter(value -> value % 2 == 1).toString());
+        assertEquals(15, test.reduce(0, Integer::sum));
+        assertEquals("[a1, a2, a3, a4, a5]", test.map(value -> "a" + value).toString());
+    }
+
+    @Test
+    void snapshots(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("list.bin");
+        initRandomly();
+        list.save(file);
+        assertEquals(list.toString(), ComparableList.<Integer>load(file).toString());
+
+        ComparableList<String> words = ComparableList.of("zebra", "", "\u017c\u00f3\u0142w", "a".repeat(300), "apple");
+        words.setSortedMode(true);
+        words.save(file);
+        ComparableList<String> loaded = ComparableList.load(file);
+        assertTrue(loaded.isSortedMode());
+        assertEquals(words.toString(), loaded.toString());
+        loaded.add("banana");
+        assertEquals(3, loaded.indexOf("banana"));
+
+        ComparableList<Double> doubles = ComparableList.of(1.5, -0.0, Double.NaN, Double.MAX_VALUE);
+        doubles.save(file);
+        assertEquals(doubles.toString(), ComparableList.<Double>load(file).toString());
+        ComparableList.of(1L, 2L).save(file);
+        assertEquals(2L, ComparableList.<Long>load(file).max());
+        new ComparableList<Integer>().save(file);
+        assertTrue(ComparableList.<Integer>load(file).isEmpty());
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> ComparableList.load(file));
+        Files.write(file, new byte[32]);
+        assertThrows(IOException.class, () -> ComparableList.load(file));
+        assertThrows(IllegalArgumentException.class, () -> ComparableList.of(new Entry(1, 1)).save(file));
+    }
+
+    @Test
+    void views() {
+        ComparableList<Integer> numbers = ComparableList.of(5, 3, 9, 1, 7);
+        assertEquals("[3, 9, 1]", numbers.subList(1, 4).toString());
+        assertEquals("[7, 1, 9, 3, 5]", numbers.reversedView().toString());
+        assertEquals("[9]", numbers.subList(1, 4).subList(1, 2).toString());
+        assertEquals("[7, 1]", numbers.reversedView().subList(0, 2).toString());
+        ListView<Integer> sorted = numbers.sortedView();
+        assertEquals(1, sorted.get(0));
+        assertEquals("[1, 3, 5, 7, 9]", sorted.toString());
+        assertEquals("[5, 3, 9, 1, 7]", numbers.toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> numbers.subList(3, 6));
+        assertThrows(IndexOutOfBoundsException.class, () -> sorted.get(5));
+
+        for (int i = 0; i < 100_000; i++) {
+            list.add((int) (Math.random() * 1000));
+        }
+        List<Integer> expected = new ArrayList<>();
+        list.forEach(expected::add);
+        expected.sort(null);
+        ListView<Integer> lazy = list.sortedView();
+        ListView<Integer> first = lazy.subList(0, 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected.get(i), first.get(i));
+        }
+        int index = 0;
+        for (Integer element : lazy) {
+            assertEquals(expected.get(index++), element);
+        }
+        assertEquals(list.size(), index);
+        ComparableList<Integer> copy = list.reversedView().toList();
+        copy.reverse();
+        assertEquals(list.toString(), copy.toString());
+
+        list.add(0);
+        assertThrows(ConcurrentModificationException.class, () -> lazy.get(0));
+        assertThrows(ConcurrentModificationException.class, first::toString);
+
+        ListView<Integer> beforeSet = list.sortedView();
+        list.set(0, -1);
+        assertThrows(ConcurrentModificationException.class, () -> beforeSet.get(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void merging() {
+        Random random = new Random(11);
+        ComparableList<Integer>[] shards = (ComparableList<Integer>[]) new ComparableList<?>[64];
+        List<Integer> expected = new ArrayList<>();
+        for (int s = 0; s < shards.length; s++) {
+            shards[s] = new ComparableList<>(ComparableList.Layout.GAP_BUFFER);
+            for (int i = random.nextInt(10_000); i > 0; i--) {
+                int value = random.nextInt(s % 2 == 0 ? 1000 : 1_000_000);
+                shards[s].add(0, value);
+                expected.add(value);
+            }
+            shards[s].sortAscending();
+        }
+        expected.sort(null);
+        assertEquals(expected.toString(), ComparableList.merge(shards).toString());
+        assertEquals(expected.toString(), ComparableList.parallelMerge(shards).toString());
+        assertTrue(ComparableList.merge().isEmpty());
+        assertEquals("[1, 2, 3]", ComparableList.merge(ComparableList.of(2), new ComparableList<>(),
+                                                       ComparableList.of(1, 3)).toString());
+
+        ComparableList<Entry>[] entries = (ComparableList<Entry>[]) new ComparableList<?>[3];
+        for (int s = 0; s < entries.length; s++) {
+            entries[s] = new ComparableList<>();
+            for (int i = 0; i < 20_000; i++) {
+                entries[s].add(new Entry(i / 100, s));
+            }
+        }
+        ComparableList<Entry> merged = ComparableList.parallelMerge(entries);
+        assertEquals(60_000, merged.size());
+        for (int i = 1; i < merged.size(); i++) {
+            Entry previous = merged.get(i - 1);
+            Entry current = merged.get(i);
+            assertTrue(previous.key < current.key || previous.order <= current.order);
+        }
+        assertThrows(IllegalArgumentException.class, () -> ComparableList.merge(ComparableList.of(2, 1)));
+    }
+
+    @Test
+    void orderStatistics() {
+        assertNull(list.median());
+        assertNull(list.percentile(99));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.nthElement(0));
+        ComparableList<Integer> numbers = ComparableList.of(7, 1, 9, 3, 5, 3);
+        assertEquals(1, numbers.nthElement(0));
+        assertEquals(3, numbers.nthElement(2));
+        assertEquals(9, numbers.nthElement(5));
+        assertEquals(3, numbers.median());
+        assertEquals(1, numbers.percentile(0));
+        assertEquals(9, numbers.percentile(100));
+        assertEquals("[7, 1, 9, 3, 5, 3]", numbers.toString());
+        assertThrows(IllegalArgumentException.class, () -> numbers.percentile(100.5));
+
+        Random random = new Random(5);
+        for (int i = 0; i < 200_000; i++) {
+            list.add(random.nextInt(i % 3 == 0 ? 10 : 1_000_000));
+        }
+        List<Integer> sorted = new ArrayList<>();
+        list.forEach(sorted::add);
+        sorted.sort(null);
+        Percentiles<Integer> snapshot = list.percentiles();
+        assertEquals("[" + sorted.get(99_999) + ", " + sorted.get(179_999) + ", " + sorted.get(197_999) + "]",
+                     snapshot.percentiles(50, 90, 99).toString());
+        for (int i = 0; i < 1000; i++) {
+            int k = random.nextInt(sorted.size());
+            assertEquals(sorted.get(k), snapshot.nthElement(k));
+        }
+        assertEquals(sorted.get(123_456), list.nthElement(123_456));
+        assertEquals(sorted.get(0), snapshot.percentile(0));
+        list.setSortedMode(true);
+        assertEquals(sorted.get(99_999), list.median());
+        assertEquals(sorted.get(197_999), list.percentiles().percentile(99));
+    }
+
     @Test
     void set() {
         initRandomly();
@@ -180,4 +674,19 @@ public class ComparableListTest {
         boolean test = list.remove(element);
         assertTrue(test);
     }
+
+    private static class Entry implements Comparable<Entry> {
+        private final int key;
+        private final int order;
+
+        Entry(int key, int order) {
+            this.key = key;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return Integer.compare(key, other.key);
+        }
+    }
 }
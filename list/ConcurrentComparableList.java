@@ -0,0 +1,521 @@
+package list;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.StringJoiner;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Thread-safe growable array for Comparable elements, which can be shared by many threads.
+ * <p>
+ * Reads do not lock. They work with the last published version of the array, which is never changed
+ * in the part readers can see: appends write behind the published size and any other change
+ * copies the array before publishing it.
+ * <p>
+ * Appends go to one of several stripes, chosen by the calling thread, so threads adding at the same time
+ * rarely wait for each other. A stripe is published in a batch when it fills up, when a thread appending
+ * to it reads the list, before any other change of the list or when {@link #publish()} is called.
+ * A thread always sees its own appends: only a read of a thread whose stripe holds unpublished appends
+ * takes the lock to publish them. Appends of other threads are seen once they are published. Elements added
+ * by one thread keep their order, elements added by different threads may be published in any order relative
+ * to each other.
+ * @param <E> type of elements the list will contain
+ */
+public class ConcurrentComparableList<E extends Comparable<E>> {
+    private static final int BATCH = 1024;                             // appends a stripe holds before publishing
+    private final ReentrantLock lock = new ReentrantLock();            // guards publishing and all other changes
+    private final Stripe[] stripes;                                    // buffers of appends not yet published
+    private final int mask;                                            // maps a thread to its stripe
+    private volatile Version version = new Version(new Comparable<?>[10], 0);   // the last published version
+    private volatile boolean dirty;                                    // some stripe holds unpublished appends
+
+    /**
+     * Array of elements together with the number of elements visible in it. The visible part never changes.
+     */
+    private static final class Version {
+        private final Comparable<?>[] values;
+        private final int size;
+
+        Version(Comparable<?>[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Buffer of appends of the threads mapped to it.
+     */
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Comparable<?>[] buffer = new Comparable<?>[16];
+        private volatile int size;
+    }
+
+    /**
+     * Creates an empty list with the number of stripes based on the number of processors.
+     */
+    public ConcurrentComparableList() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates an empty list with the specific number of stripes, rounded up to the power of two.
+     * @param stripes the number of stripes, one means that all the appends go through a single buffer
+     */
+    public ConcurrentComparableList(int stripes) {
+        int count = Integer.highestOneBit(Math.max(1, Math.min(stripes, 1 << 16)) * 2 - 1);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        mask = count - 1;
+    }
+
+    /**
+     * Adds the element to the end of the list, through the stripe of the calling thread.
+     * @param element the element to be added to the list
+     * @return {@code true} in all valid cases, {@code false} in case element is {@code null}
+     */
+    public boolean add(E element) {
+        if (element == null) {
+            return false;
+        }
+        Stripe stripe = stripe();
+        boolean full;
+        stripe.lock.lock();
+        try {
+            if (stripe.size == stripe.buffer.length) {
+                stripe.buffer = Arrays.copyOf(stripe.buffer, stripe.size * 2);
+            }
+            stripe.buffer[stripe.size] = element;
+            stripe.size++;
+            full = stripe.size >= BATCH;
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (!dirty) {
+            dirty = true;
+        }
+        if (full) {
+            publish();
+        }
+        return true;
+    }
+
+    /**
+     * Adds the specified elements to the end of the list, keeping them together.
+     * If one of them is {@code null}, does nothing.
+     * @param elements the elements to be added
+     * @return the number of elements added
+     */
+    @SafeVarargs
+    public final int addAll(E... elements) {
+        for (E element : elements) {
+            if (element == null) {
+                return 0;
+            }
+        }
+        lock.lock();
+        try {
+            Version current = drain();
+            Comparable<?>[] values = capacity(current, current.size + elements.length);
+            for (int i = 0; i < elements.length; i++) {
+                values[current.size + i] = elements[i];
+            }
+            version = new Version(values, current.size + elements.length);
+        } finally {
+            lock.unlock();
+        }
+        return elements.length;
+    }
+
+    /**
+     * Adds the element to the list at the specified index.
+     * @param index the index where the element should be added
+     * @param element the element to be added to the list
+     * @throws IndexOutOfBoundsException if the index is not within the bounds of the list
+     */
+    public void add(int index, E element) {
+        lock.lock();
+        try {
+            Version current = drain();
+            if (index < 0 || index > current.size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d, Size: %d", index, current.size));
+            }
+            if (element == null) {
+                return;
+            }
+            Comparable<?>[] values = new Comparable<?>[Math.max(10, (current.size + 1) * 2)];
+            System.arraycopy(current.values, 0, values, 0, index);
+            values[index] = element;
+            System.arraycopy(current.values, index, values, index + 1, current.size - index);
+            version = new Version(values, current.size + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the element at the specified index.
+     * @param index index of the element to be returned
+     * @return the element at the specified index
+     * @throws IndexOutOfBoundsException if the index is not within the bounds of the list
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Version current = read();
+        checkIndex(index, current.size);
+        return (E) current.values[index];
+    }
+
+    /**
+     * Sets the element at the specific index to the provided value.
+     * @param index index to be set
+     * @param value value to be set to the element
+     * @return the old element
+     * @throws IndexOutOfBoundsException if the index is not within the bounds of the list
+     */
+    @SuppressWarnings("unchecked")
+    public E set(int index, E value) {
+        lock.lock();
+        try {
+            Version current = drain();
+            checkIndex(index, current.size);
+            Comparable<?>[] values = copy(current);
+            E old = (E) values[index];
+            values[index] = value;
+            version = new Version(values, current.size);
+            return old;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the element from the list at the specific index.
+     * @param index the index where the element should be removed
+     * @return the element removed
+     * @throws IndexOutOfBoundsException if the index is not within the bounds of the list
+     */
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        lock.lock();
+        try {
+            Version current = drain();
+            checkIndex(index, current.size);
+            Comparable<?>[] values = new Comparable<?>[current.values.length];
+            System.arraycopy(current.values, 0, values, 0, index);
+            System.arraycopy(current.values, index + 1, values, index, current.size - index - 1);
+            version = new Version(values, current.size - 1);
+            return (E) current.values[index];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the first occurrence of the specific element from the list.
+     * @param element the element to be removed
+     * @return {@code true} if the element was removed, otherwise {@code false}
+     */
+    public boolean remove(E element) {
+        lock.lock();
+        try {
+            Version current = drain();
+            for (int i = 0; i < current.size; i++) {
+                if (current.values[i].equals(element)) {
+                    remove(i);
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all the elements satisfying the predicate.
+     * @param filter the predicate which returns {@code true} for the elements to be removed
+     * @return the number of elements removed
+     */
+    @SuppressWarnings("unchecked")
+    public int removeIf(Predicate<? super E> filter) {
+        lock.lock();
+        try {
+            Version current = drain();
+            Comparable<?>[] values = new Comparable<?>[current.values.length];
+            int kept = 0;
+            for (int i = 0; i < current.size; i++) {
+                if (!filter.test((E) current.values[i])) {
+                    values[kept++] = current.values[i];
+                }
+            }
+            version = new Version(values, kept);
+            return current.size - kept;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Clears the list, including the appends not yet published.
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            drain();
+            version = new Version(new Comparable<?>[10], 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sorts the list in the ascending order.
+     */
+    public void sortAscending() {
+        sort(Comparator.naturalOrder());
+    }
+
+    /**
+     * Sorts the list in the descending order.
+     */
+    public void sortDescending() {
+        sort(Comparator.reverseOrder());
+    }
+
+    /**
+     * Sorts a copy of the elements and publishes it.
+     * @param comparator the order to sort in
+     */
+    @SuppressWarnings("unchecked")
+    private void sort(Comparator<E> comparator) {
+        lock.lock();
+        try {
+            Version current = drain();
+            E[] values = (E[]) copy(current);
+            Sorting.sort(values, 0, current.size, comparator);
+            version = new Version(values, current.size);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of elements in the list.
+     * @return the number of elements in the list
+     */
+    public int size() {
+        return read().size;
+    }
+
+    /**
+     * Checks if the list is empty.
+     * @return {@code true} if the list is empty, otherwise {@code false}
+     */
+    public boolean isEmpty() {
+        return read().size == 0;
+    }
+
+    /**
+     * Checks if the list contains the specified element.
+     * @param element the element to search for
+     * @return {@code true} if the list contains the element, otherwise {@code false}
+     */
+    public boolean contains(E element) {
+        Version current = read();
+        for (int i = 0; i < current.size; i++) {
+            if (current.values[i].equals(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Searches the list for the first occurrence of the specific element.
+     * @param element element to search for
+     * @return the index of the first occurrence of the element, or -1 in case the element was not found
+     */
+    public int indexOf(E element) {
+        Version current = read();
+        for (int i = 0; i < current.size; i++) {
+            if (current.values[i] == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the maximum element from the list.
+     * @return the maximum element or {@code null} if the list is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E max() {
+        Version current = read();
+        if (current.size == 0) {
+            System.out.println("The list is empty!");
+            return null;
+        }
+        E max = (E) current.values[0];
+        for (int i = 1; i < current.size; i++) {
+            if (((E) current.values[i]).compareTo(max) > 0) {
+                max = (E) current.values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gets the minimum element from the list.
+     * @return the minimum element or {@code null} if the list is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E min() {
+        Version current = read();
+        if (current.size == 0) {
+            System.out.println("The list is empty!");
+            return null;
+        }
+        E min = (E) current.values[0];
+        for (int i = 1; i < current.size; i++) {
+            if (((E) current.values[i]).compareTo(min) < 0) {
+                min = (E) current.values[i];
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Copies the list to an array of objects.
+     * @return list as an array of objects
+     */
+    public Object[] toArray() {
+        Version current = read();
+        return Arrays.copyOf(current.values, current.size, Object[].class);
+    }
+
+    /**
+     * Copies the current version of the list into a new, not thread-safe ComparableList.
+     * @return the copy of the list
+     */
+    @SuppressWarnings("unchecked")
+    public ComparableList<E> snapshot() {
+        Version current = read();
+        ComparableList<E> copy = new ComparableList<>();
+        for (int i = 0; i < current.size; i++) {
+            copy.add((E) current.values[i]);
+        }
+        return copy;
+    }
+
+    /**
+     * Publishes the appends waiting in the stripes.
+     */
+    public void publish() {
+        lock.lock();
+        try {
+            drain();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the stripe of the calling thread.
+     * @return the stripe the calling thread appends to
+     */
+    @SuppressWarnings("deprecation")
+    private Stripe stripe() {
+        return stripes[(int) Thread.currentThread().getId() & mask];
+    }
+
+    /**
+     * Gets the version to read from, the last published one. Only if the stripe of the calling thread holds
+     * appends, they are published first, so that a thread always sees its own appends.
+     * @return the version to read from
+     */
+    private Version read() {
+        if (stripe().size > 0) {
+            publish();
+        }
+        return version;
+    }
+
+    /**
+     * Moves the appends from the stripes behind the published elements and publishes them.
+     * Each stripe is published before it is emptied, so its appends are never invisible.
+     * Has to be called while holding the lock.
+     * @return the version including all the appends
+     */
+    private Version drain() {
+        Version current = version;
+        if (!dirty) {
+            return current;
+        }
+        dirty = false;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                if (stripe.size > 0) {
+                    Comparable<?>[] values = capacity(current, current.size + stripe.size);
+                    System.arraycopy(stripe.buffer, 0, values, current.size, stripe.size);
+                    current = new Version(values, current.size + stripe.size);
+                    version = current;
+                    Arrays.fill(stripe.buffer, 0, stripe.size, null);
+                    stripe.size = 0;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Gets an array which can hold the specific number of elements, where the elements of the version are
+     * at the beginning. It is the array of the version itself, if it is large enough.
+     */
+    private static Comparable<?>[] capacity(Version current, int size) {
+        if (size <= current.values.length) {
+            return current.values;
+        }
+        return Arrays.copyOf(current.values, Math.max(size, current.values.length * 2));
+    }
+
+    /**
+     * Copies the array of the version, so that it can be changed.
+     */
+    private static Comparable<?>[] copy(Version current) {
+        return Arrays.copyOf(current.values, current.values.length);
+    }
+
+    /**
+     * Checks that the index is within the bounds.
+     * @param index index to be checked
+     * @param size the number of elements
+     * @throws IndexOutOfBoundsException if the index is not within the bounds of the list
+     */
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Index %d ouf of bounds for length %d", index, size));
+        }
+    }
+
+    /**
+     * Produces a readable string representation of the list.
+     * @return the string representation of the list
+     */
+    @Override
+    public String toString() {
+        Version current = read();
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < current.size; i++) {
+            joiner.add(current.values[i].toString());
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,157 @@
+package list;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentComparableListTest {
+    private final ConcurrentComparableList<Integer> list = new ConcurrentComparableList<>();
+
+    /**
+     * Runs the task on the specific number of threads started at the same time and waits for them.
+     */
+    void runConcurrently(int threads, Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> started = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            thread.start();
+            started.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : started) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty(), failures.toString());
+    }
+
+    @Test
+    void basics() {
+        assertTrue(list.isEmpty());
+        assertNull(list.max());
+        list.addAll(5, 1, 3);
+        list.add(1, 4);
+        assertEquals("[5, 4, 1, 3]", list.toString());
+        assertEquals(4, list.set(1, 2));
+        assertEquals(5, list.remove(0));
+        assertTrue(list.remove((Integer) 3));
+        list.sortDescending();
+        assertEquals("[2, 1]", list.toString());
+        assertEquals(2, list.max());
+        assertEquals(1, list.min());
+        assertEquals(1, list.indexOf(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(2));
+        list.clear();
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    void readOwnAppends() throws InterruptedException {
+        AtomicInteger ids = new AtomicInteger();
+        runConcurrently(8, () -> {
+            int id = ids.getAndIncrement();
+            for (int i = 0; i < 20_000; i++) {
+                int value = id * 100_000 + i;
+                list.add(value);
+                if (i % 512 == 0) {
+                    assertTrue(list.contains(value));
+                }
+            }
+        });
+        list.publish();
+        assertEquals(8 * 20_000, list.size());
+    }
+
+    @Test
+    void concurrentAppends() throws InterruptedException {
+        int threads = 16;
+        int perThread = 100_000;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> readerFailure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                int last = 0;
+                while (!done.get()) {
+                    int size = list.size();
+                    if (size < last) {
+                        throw new AssertionError("Size went down from " + last + " to " + size);
+                    }
+                    last = size;
+                    if (size > 0) {
+                        list.get(size - 1);
+                    }
+                }
+            } catch (Throwable e) {
+                readerFailure.set(e);
+            }
+        });
+        reader.start();
+        AtomicInteger ids = new AtomicInteger();
+        runConcurrently(threads, () -> {
+            int base = ids.getAndIncrement() * 1_000_000;
+            for (int i = 0; i < perThread; i++) {
+                list.add(base + i);
+            }
+        });
+        done.set(true);
+        reader.join();
+        assertNull(readerFailure.get());
+        // the appends of the finished threads left in their stripes are seen once published
+        list.publish();
+        assertEquals(threads * perThread, list.size());
+        Object[] values = list.toArray();
+        // every thread's elements are present exactly once and in the order they were added
+        Map<Integer, Integer> lastByThread = new HashMap<>();
+        for (Object value : values) {
+            int element = (Integer) value;
+            Integer previous = lastByThread.put(element / 1_000_000, element);
+            assertTrue(previous == null || previous + 1 == element);
+        }
+        assertEquals(threads, lastByThread.size());
+    }
+
+    @Test
+    void mixedOperations() throws InterruptedException {
+        runConcurrently(8, () -> {
+            for (int i = 0; i < 2_000; i++) {
+                list.add(i);
+                if (i % 100 == 0) {
+                    list.add(0, -1);
+                    list.remove((Integer) (-1));
+                    list.removeIf(value -> value < 0);
+                }
+                if (i % 500 == 0) {
+                    list.sortAscending();
+                }
+            }
+        });
+        list.publish();
+        assertEquals(8 * 2_000, list.size());
+        assertFalse(list.contains(-1));
+        list.sortAscending();
+        assertTrue(list.snapshot().isSortedAscending());
+    }
+}
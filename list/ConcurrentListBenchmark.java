@@ -0,0 +1,100 @@
+package list;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares ConcurrentComparableList with a ComparableList guarded by a global {@code synchronized} block.
+ * main() runs every benchmark with 1, 2, 4, 8, 16 and 32 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ConcurrentListBenchmark {
+    private static final Integer ELEMENT = 1_000;                      // the same instance is added every time
+    private ConcurrentComparableList<Integer> concurrent;
+    private ComparableList<Integer> synchronizedList;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        concurrent = new ConcurrentComparableList<>();
+        synchronizedList = new ComparableList<>();
+        for (int i = 0; i < 100_000; i++) {
+            concurrent.add(i);
+            synchronizedList.add(i);
+        }
+        concurrent.publish();
+    }
+
+    @Benchmark
+    public boolean concurrentAdd() {
+        return concurrent.add(ELEMENT);
+    }
+
+    @Benchmark
+    public boolean synchronizedAdd() {
+        synchronized (synchronizedList) {
+            return synchronizedList.add(ELEMENT);
+        }
+    }
+
+    @Benchmark
+    public Integer concurrentGet() {
+        return concurrent.get(ThreadLocalRandom.current().nextInt(100_000));
+    }
+
+    @Benchmark
+    public Integer synchronizedGet() {
+        synchronized (synchronizedList) {
+            return synchronizedList.get(ThreadLocalRandom.current().nextInt(100_000));
+        }
+    }
+
+    /**
+     * Nine reads for every append.
+     */
+    @Benchmark
+    public Object concurrentMixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return random.nextInt(10) == 0 ? concurrent.add(ELEMENT) : concurrent.get(random.nextInt(100_000));
+    }
+
+    /**
+     * Nine reads for every append.
+     */
+    @Benchmark
+    public Object synchronizedMixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        synchronized (synchronizedList) {
+            return random.nextInt(10) == 0 ? synchronizedList.add(ELEMENT)
+                                           : synchronizedList.get(random.nextInt(100_000));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 2, 4, 8, 16, 32}) {
+            new Runner(new OptionsBuilder()
+                    .include(ConcurrentListBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
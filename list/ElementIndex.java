@@ -0,0 +1,162 @@
+package list;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hash index of the elements of a ComparableList. For every distinct element it keeps the number
+ * of its occurrences and the indexes where they are, in the ascending order.
+ * <p>
+ * The counts are always exact. The indexes are kept up to date for the operations which do not move
+ * other elements (adding to the end, removing from the end, setting and swapping), any other change
+ * marks them as stale and they are rebuilt with a single pass on the next lookup.
+ * @param <E> type of elements
+ */
+final class ElementIndex<E> {
+    private final Map<E, Occurrences> occurrences = new HashMap<>();  // element to its occurrences
+    private boolean stale;                                             // the indexes have to be rebuilt
+
+    /**
+     * Occurrences of one element.
+     */
+    static final class Occurrences {
+        int count;                                                     // number of occurrences
+        int[] indexes = new int[2];                                    // indexes in the ascending order
+        int size;                                                      // number of valid indexes
+
+        /**
+         * Adds the index, keeping the ascending order.
+         */
+        void addIndex(int index) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+            }
+            int position = Arrays.binarySearch(indexes, 0, size, index);
+            position = position < 0 ? -position - 1 : position;
+            System.arraycopy(indexes, position, indexes, position + 1, size - position);
+            indexes[position] = index;
+            size++;
+        }
+
+        /**
+         * Removes the index if it is present.
+         */
+        void removeIndex(int index) {
+            int position = Arrays.binarySearch(indexes, 0, size, index);
+            if (position >= 0) {
+                System.arraycopy(indexes, position + 1, indexes, position, size - position - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Records the element added at the specific index.
+     * @param element the element added
+     * @param index the index of the element
+     * @param last whether the element was added to the end, so that no other element moved
+     */
+    void added(E element, int index, boolean last) {
+        Occurrences entry = occurrences.computeIfAbsent(element, e -> new Occurrences());
+        entry.count++;
+        if (!last) {
+            stale = true;
+        } else if (!stale) {
+            entry.addIndex(index);
+        }
+    }
+
+    /**
+     * Records the element removed from the specific index.
+     * @param element the element removed
+     * @param index the index the element was at
+     * @param last whether the element was the last one, so that no other element moved
+     */
+    void removed(E element, int index, boolean last) {
+        Occurrences entry = occurrences.get(element);
+        if (entry == null) {
+            return;
+        }
+        if (--entry.count == 0) {
+            occurrences.remove(element);
+        }
+        if (!last) {
+            stale = true;
+        } else if (!stale && entry.count > 0) {
+            entry.removeIndex(index);
+        }
+    }
+
+    /**
+     * Records the element at the specific index replaced by another one.
+     * @param old the element replaced
+     * @param value the new element
+     * @param index the index of the elements
+     */
+    void replaced(E old, E value, int index) {
+        removed(old, index, true);
+        added(value, index, true);
+    }
+
+    /**
+     * Marks the indexes as stale, after the elements moved.
+     */
+    void moved() {
+        stale = true;
+    }
+
+    /**
+     * Removes all the elements from the index.
+     */
+    void clear() {
+        occurrences.clear();
+        stale = false;
+    }
+
+    /**
+     * Gets the number of occurrences of the element.
+     * @param element the element to count
+     * @return the number of occurrences
+     */
+    int count(E element) {
+        Occurrences entry = occurrences.get(element);
+        return entry == null ? 0 : entry.count;
+    }
+
+    /**
+     * Checks if the indexes have to be rebuilt before {@link #occurrences(Object)} is used.
+     * @return {@code true} if the indexes are stale
+     */
+    boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Rebuilds the indexes from the contiguous elements of the list.
+     * @param values the elements of the list
+     * @param size the number of elements
+     */
+    void rebuild(E[] values, int size) {
+        for (Occurrences entry : occurrences.values()) {
+            entry.size = 0;
+        }
+        for (int i = 0; i < size; i++) {
+            Occurrences entry = occurrences.get(values[i]);
+            if (entry.size == entry.indexes.length) {
+                entry.indexes = Arrays.copyOf(entry.indexes, entry.size * 2);
+            }
+            entry.indexes[entry.size++] = i;
+        }
+        stale = false;
+    }
+
+    /**
+     * Gets the occurrences of the element. The indexes must not be stale.
+     * @param element the element to search for
+     * @return the occurrences or {@code null} if the element is not in the list
+     */
+    Occurrences occurrences(E element) {
+        return occurrences.get(element);
+    }
+}
@@ -0,0 +1,114 @@
+package list;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IntComparableListTest {
+    private final IntComparableList list = new IntComparableList();
+
+    void initRandomly() {
+        for (int i = 0; i < 1000; i++) {
+            list.add((int) (Math.random() * Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void growing() {
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        assertEquals(1000, list.size());
+        assertEquals(999, list.get(999));
+    }
+
+    @Test
+    void inserting() {
+        list.addAll(1, 2, 4);
+        list.add(2, 3);
+        list.add(0, 0);
+        assertEquals("[0, 1, 2, 3, 4]", list.toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.add(6, 5));
+    }
+
+    @Test
+    void removing() {
+        list.addAll(5, 1, 5, 2, 5, 3);
+        assertEquals(5, list.remove(0));
+        assertTrue(list.removeValue(2));
+        assertFalse(list.removeValue(2));
+        assertEquals(2, list.removeAll(5, 7));
+        assertArrayEquals(new int[]{1, 3}, list.toArray());
+    }
+
+    @Test
+    void sorting() {
+        initRandomly();
+        list.sortAscending();
+        assertTrue(list.isSortedAscending());
+        list.sortDescending();
+        assertTrue(list.isSortedDescending());
+        list.parallelSortAscending();
+        assertTrue(list.isSortedAscending());
+    }
+
+    @Test
+    void minMax() {
+        assertThrows(NoSuchElementException.class, list::max);
+        assertThrows(NoSuchElementException.class, list::min);
+        initRandomly();
+        list.sortAscending();
+        assertEquals(list.get(0), list.min());
+        assertEquals(list.get(list.size() - 1), list.max());
+    }
+
+    @Test
+    void searching() {
+        list.addAll(1, 1, 2, 2);
+        assertEquals(0, list.indexOf(1));
+        assertEquals(3, list.lastIndexOf(2));
+        assertEquals(-1, list.indexOf(3));
+        assertTrue(list.contains(2));
+    }
+
+    @Test
+    void reverseAndSwap() {
+        list.addAll(1, 2, 3);
+        list.reverse();
+        assertEquals("[3, 2, 1]", list.toString());
+        list.swap(0, 2);
+        assertEquals("[1, 2, 3]", list.toString());
+    }
+
+    @Test
+    void bridge() {
+        initRandomly();
+        ComparableList<Integer> boxed = list.toComparableList();
+        assertEquals(list.toString(), boxed.toString());
+        IntComparableList unboxed = IntComparableList.from(boxed);
+        assertArrayEquals(list.toArray(), unboxed.toArray());
+    }
+
+    @Test
+    void otherWidths() {
+        LongComparableList longs = LongComparableList.of(3_000_000_000L, -1L, 7L);
+        longs.sortAscending();
+        assertEquals("[-1, 7, 3000000000]", longs.toString());
+        assertEquals(longs.toString(), LongComparableList.from(longs.toComparableList()).toString());
+
+        DoubleComparableList doubles = DoubleComparableList.of(0.5, Double.NaN, -0.0, 0.0);
+        doubles.sortAscending();
+        assertEquals("[-0.0, 0.0, 0.5, NaN]", doubles.toString());
+        assertEquals(Double.NaN, doubles.max());
+        assertEquals(3, doubles.indexOf(Double.NaN));
+        ComparableList<Double> boxed = doubles.toComparableList();
+        assertEquals(boxed.max(), doubles.max());
+        assertEquals(boxed.min(), doubles.min());
+    }
+}
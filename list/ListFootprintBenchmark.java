@@ -0,0 +1,96 @@
+package list;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of loading a large number of elements into ComparableList with different growth policies.
+ * Every invocation is a single bulk load. Next to the time, the benchmark reports how many times the underlying
+ * array was copied and how many slots are left unused at the end, and the GC profiler reports the bytes
+ * allocated per load, which include all the intermediate arrays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ListFootprintBenchmark {
+    @Param({"50000000"})
+    private int size;
+    @Param({"DEFAULT", "DEFAULT_TRIMMED", "FACTOR_1_5", "PRESIZED"})
+    private String policy;
+    private Integer[] elements;                                        // boxed once, so that loads allocate only arrays
+
+    @Setup
+    public void setUp() {
+        elements = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = i;
+        }
+    }
+
+    /**
+     * Number of times the underlying array was copied and the unused slots after the load.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long copies;
+        public long slack;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            copies = 0;
+            slack = 0;
+        }
+    }
+
+    @Benchmark
+    public ComparableList<Integer> load(Footprint footprint) {
+        ComparableList<Integer> list = switch (policy) {
+            case "DEFAULT", "DEFAULT_TRIMMED" -> new ComparableList<>();
+            case "FACTOR_1_5" -> new ComparableList<>(ComparableList.DEFAULT_CAPACITY, 1.5, ComparableList.Layout.ARRAY);
+            case "PRESIZED" -> new ComparableList<>(size);
+            default -> throw new IllegalArgumentException("Unknown policy " + policy);
+        };
+        int capacity = list.getCapacity();
+        for (Integer element : elements) {
+            list.add(element);
+            if (list.getCapacity() != capacity) {
+                capacity = list.getCapacity();
+                footprint.copies++;
+            }
+        }
+        if (policy.equals("DEFAULT_TRIMMED")) {
+            list.trimToSize();
+            footprint.copies++;
+        }
+        footprint.slack += list.getCapacity() - list.size();
+        return list;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ListFootprintBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,353 @@
+package list;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+
+/**
+ * Read-only view of the elements of a ComparableList, which does not copy them up front. Sub-list and reversed
+ * views read the elements from the list when they are asked for, a sorted view sorts only as far as it is read.
+ * <p>
+ * Views fail fast: once an element is added to, removed from or replaced in the list, or the list is reordered,
+ * every method of a view created before throws {@link ConcurrentModificationException}.
+ * @param <E> type of elements the list contains
+ */
+public abstract class ListView<E extends Comparable<E>> implements Iterable<E> {
+    final ComparableList<E> list;                                      // the list the view shows
+    private final int expectedModCount;                                // detects changes of the list
+
+    ListView(ComparableList<E> list) {
+        this.list = list;
+        this.expectedModCount = list.modCount();
+    }
+
+    /**
+     * Creates the view of the range of the list.
+     * @param list the list
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @param <E> type of elements
+     * @return the view of the range
+     */
+    static <E extends Comparable<E>> ListView<E> range(ComparableList<E> list, int from, int to) {
+        return new SubView<>(new WholeView<>(list), from, to);
+    }
+
+    /**
+     * Creates the view of the list in the reverse order.
+     * @param list the list
+     * @param <E> type of elements
+     * @return the reversed view
+     */
+    static <E extends Comparable<E>> ListView<E> reversed(ComparableList<E> list) {
+        return new ReversedView<>(new WholeView<>(list));
+    }
+
+    /**
+     * Creates the view of the list in the ascending order.
+     * @param list the list
+     * @param <E> type of elements
+     * @return the sorted view
+     */
+    static <E extends Comparable<E>> ListView<E> sorted(ComparableList<E> list) {
+        return new SortedView<>(list);
+    }
+
+    /**
+     * Gets the number of elements in the view.
+     * @return the number of elements in the view
+     */
+    public abstract int size();
+
+    /**
+     * Gets the element at the index, which is known to be valid.
+     */
+    abstract E element(int index);
+
+    /**
+     * Checks if the view is empty.
+     * @return {@code true} if the view is empty, otherwise {@code false}
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Gets the element at the specified index of the view.
+     * @param index index of the element to be returned
+     * @return the element at the specified index
+     * @throws IndexOutOfBoundsException if the index is not within the bounds of the view
+     */
+    public E get(int index) {
+        checkForComodification();
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(String.format("Index %d ouf of bounds for length %d", index, size()));
+        }
+        return element(index);
+    }
+
+    /**
+     * Creates the view of the range of this view.
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @return the view of the range
+     * @throws IndexOutOfBoundsException if the range is not within the bounds of the view
+     */
+    public ListView<E> subList(int from, int to) {
+        checkForComodification();
+        return new SubView<>(this, from, to);
+    }
+
+    /**
+     * Copies the elements of the view to a new list.
+     * @return the list with the elements in the order of the view
+     */
+    public ComparableList<E> toList() {
+        checkForComodification();
+        ComparableList<E> copy = new ComparableList<>(size());
+        for (int i = 0; i < size(); i++) {
+            copy.add(element(i));
+        }
+        return copy;
+    }
+
+    /**
+     * Creates an iterator over the elements of the view.
+     * @return the iterator in the order of the view
+     */
+    @Override
+    public Iterator<E> iterator() {
+        checkForComodification();
+        return new Iterator<>() {
+            private int cursor;                                        // index of the next element
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size();
+            }
+
+            @Override
+            public E next() {
+                checkForComodification();
+                if (cursor >= size()) {
+                    throw new NoSuchElementException();
+                }
+                return element(cursor++);
+            }
+        };
+    }
+
+    /**
+     * Produces a readable string representation of the view.
+     * @return the string representation of the view
+     */
+    @Override
+    public String toString() {
+        checkForComodification();
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < size(); i++) {
+            joiner.add(element(i).toString());
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Checks that the list did not change since the view was created.
+     * @throws ConcurrentModificationException if the list changed
+     */
+    void checkForComodification() {
+        if (list.modCount() != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * The whole list in its order.
+     */
+    private static final class WholeView<E extends Comparable<E>> extends ListView<E> {
+        private final int size;                                        // number of elements
+
+        WholeView(ComparableList<E> list) {
+            super(list);
+            this.size = list.size();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        E element(int index) {
+            return list.get(index);
+        }
+    }
+
+    /**
+     * Range of another view.
+     */
+    private static final class SubView<E extends Comparable<E>> extends ListView<E> {
+        private final ListView<E> parent;                              // the view the range is taken from
+        private final int offset;                                      // index of the first element in the parent
+        private final int size;                                        // number of elements
+
+        SubView(ListView<E> parent, int from, int to) {
+            super(parent.list);
+            if (from < 0 || to > parent.size() || from > to) {
+                throw new IndexOutOfBoundsException(String.format("From %d, To: %d, Size: %d", from, to, parent.size()));
+            }
+            this.parent = parent;
+            this.offset = from;
+            this.size = to - from;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        E element(int index) {
+            return parent.element(offset + index);
+        }
+    }
+
+    /**
+     * Another view in the reverse order.
+     */
+    private static final class ReversedView<E extends Comparable<E>> extends ListView<E> {
+        private final ListView<E> parent;                              // the view reversed
+        private final int last;                                        // index of the last element
+
+        ReversedView(ListView<E> parent) {
+            super(parent.list);
+            this.parent = parent;
+            this.last = parent.size() - 1;
+        }
+
+        @Override
+        public int size() {
+            return last + 1;
+        }
+
+        @Override
+        E element(int index) {
+            return parent.element(last - index);
+        }
+    }
+
+    /**
+     * The list in the ascending order, sorted incrementally by the incremental quicksort: the elements are copied
+     * on the first access and only the part of the copy up to the highest index read so far is sorted. Reading
+     * the first k elements takes expected O(n + k log k) time, reading all of them expected O(n log n).
+     */
+    private static final class SortedView<E extends Comparable<E>> extends ListView<E> {
+        private static final int INSERTION_SORT_THRESHOLD = 16;       // ranges this short are sorted at once
+        private final int size;                                        // number of elements
+        private final SplittableRandom random;                          // chooses the pivots
+        private Object[] elements;                                     // copy of the elements, null until read
+        private int sorted;                                            // elements before this are in their place
+        private int[] bounds = new int[16];                            // stack of ends of the unsorted ranges
+        private int depth;                                             // number of bounds on the stack
+
+        SortedView(ComparableList<E> list) {
+            super(list);
+            this.size = list.size();
+            this.random = new SplittableRandom(size);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        E element(int index) {
+            if (elements == null) {
+                elements = list.toArray();
+                bounds[depth++] = size;
+            }
+            if (index >= sorted) {
+                sortUpTo(index);
+            }
+            return (E) elements[index];
+        }
+
+        /**
+         * Sorts the elements until the one at the index is in its place. Every element before the top bound
+         * of the stack is less than or equal to every element after it, so the smallest unsorted elements are
+         * always in the range from {@code sorted} to the top bound. That range is partitioned around a random
+         * pivot and the bounds of the parts are pushed, until the range is short enough to sort at once.
+         */
+        @SuppressWarnings("unchecked")
+        private void sortUpTo(int index) {
+            while (sorted <= index) {
+                int top = bounds[depth - 1];
+                if (top == sorted) {
+                    depth--;
+                    continue;
+                }
+                if (top - sorted <= INSERTION_SORT_THRESHOLD) {
+                    for (int i = sorted + 1; i < top; i++) {
+                        Object value = elements[i];
+                        int j = i - 1;
+                        while (j >= sorted && ((Comparable<Object>) elements[j]).compareTo(value) > 0) {
+                            elements[j + 1] = elements[j];
+                            j--;
+                        }
+                        elements[j + 1] = value;
+                    }
+                    sorted = top;
+                    depth--;
+                    continue;
+                }
+                // three-way partitioning: less than the pivot, equal to it, greater than it
+                Comparable<Object> pivot = (Comparable<Object>) elements[sorted + random.nextInt(top - sorted)];
+                int less = sorted;
+                int greater = top;
+                int i = sorted;
+                while (i < greater) {
+                    int cmp = pivot.compareTo(elements[i]);
+                    if (cmp > 0) {
+                        swap(less++, i++);
+                    } else if (cmp < 0) {
+                        swap(i, --greater);
+                    } else {
+                        i++;
+                    }
+                }
+                if (greater < top) {
+                    push(greater);
+                }
+                if (less == sorted) {
+                    sorted = greater;
+                } else {
+                    push(less);
+                }
+            }
+        }
+
+        /**
+         * Pushes the bound to the stack.
+         */
+        private void push(int bound) {
+            if (depth == bounds.length) {
+                bounds = Arrays.copyOf(bounds, depth * 2);
+            }
+            bounds[depth++] = bound;
+        }
+
+        /**
+         * Swaps two elements of the copy.
+         */
+        private void swap(int i, int j) {
+            Object temp = elements[i];
+            elements[i] = elements[j];
+            elements[j] = temp;
+        }
+    }
+}
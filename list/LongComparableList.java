@@ -0,0 +1,423 @@
+package list;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+
+/**
+ * Creates a growable array of long values. It mirrors the operations of ComparableList, but keeps
+ * the values in a {@code long[]}, so no element is ever boxed.
+ */
+public class LongComparableList {
+    private int capacity = 10;                                         // number of elements underlying array can hold
+    private int firstNullIndex;                                        // marks the beginning of the unused part
+    private long[] values = new long[capacity];                        // array of elements
+
+    /**
+     * Checks if the list is empty.
+     * @return {@code true} if the list is empty, otherwise {@code false}
+     */
+    public boolean isEmpty() {
+        return firstNullIndex == 0;
+    }
+
+    /**
+     * Checks if the elements are sorted in the ascending order.
+     * @return {@code true} if the elements are sorted in the ascending order, otherwise {@code false}
+     */
+    public boolean isSortedAscending() {
+        for (int i = 0; i < firstNullIndex - 1; i++) {
+            if (values[i] > values[i + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the elements are sorted in the descending order.
+     * @return {@code true} if the elements are sorted in the descending order, otherwise {@code false}
+     */
+    public boolean isSortedDescending() {
+        for (int i = 0; i < firstNullIndex - 1; i++) {
+            if (values[i] < values[i + 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the element to the end of the list. If the underlying
+     * array becomes full, then the new array will be created.
+     * @param element the element to be added to the list
+     */
+    public void add(long element) {
+        values[firstNullIndex++] = element;
+        if (firstNullIndex == capacity) {
+            grow();
+        }
+    }
+
+    /**
+     * Adds the element to the list at the specified index. If the underlying array becomes full,
+     * then the new array will be created.
+     * @param index the index where the element should be added
+     * @param element the element to be added to the list
+     * @throws IndexOutOfBoundsException if the index is not within the bounds of the current array
+     */
+    public void add(int index, long element) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException(String.format("Index %d, Size: %d", index, size()));
+        }
+        System.arraycopy(values, index, values, index + 1, firstNullIndex - index);
+        values[index] = element;
+        firstNullIndex++;
+        if (firstNullIndex == capacity) {
+            grow();
+        }
+    }
+
+    /**
+     * Adds the specified elements to the end of the list.
+     * @param elements the elements to be added
+     * @return the number of elements added
+     */
+    public int addAll(long... elements) {
+        if (firstNullIndex + elements.length >= capacity) {
+            grow(firstNullIndex + elements.length + 1);
+        }
+        System.arraycopy(elements, 0, values, firstNullIndex, elements.length);
+        firstNullIndex += elements.length;
+        return elements.length;
+    }
+
+    /**
+     * Checks that the index is within the bounds.
+     * @param index index to be checked
+     * @throws IndexOutOfBoundsException if the index is not within the bounds of the current array
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(String.format("Index %d ouf of bounds for length %d", index, size()));
+        }
+    }
+
+    /**
+     * Checks that the list has at least one element.
+     * @throws NoSuchElementException if the list is empty
+     */
+    private void checkNotEmpty() {
+        if (firstNullIndex == 0) {
+            throw new NoSuchElementException("The list is empty!");
+        }
+    }
+
+    /**
+     * Clears the list.
+     */
+    public void clear() {
+        capacity = 10;
+        firstNullIndex = 0;
+        values = new long[capacity];
+    }
+
+    /**
+     * Checks if the list contains the specified element.
+     * @param element the element to search for
+     * @return {@code true} if the list contains the element, otherwise {@code false}
+     */
+    public boolean contains(long element) {
+        return indexOf(element) >= 0;
+    }
+
+    /**
+     * Gets the element at the specified index.
+     * @param index index of the element to be returned
+     * @return the element at the specified index
+     */
+    public long get(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * If the underlying array is full, creates a new one with double its size and copies the elements into it.
+     */
+    private void grow() {
+        grow(capacity * 2);
+    }
+
+    /**
+     * Creates a new underlying array of at least the specific size and copies the elements into it.
+     * @param minCapacity the number of elements the new array has to hold
+     */
+    private void grow(int minCapacity) {
+        capacity = Math.max(capacity * 2, minCapacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    /**
+     * Gets the number of elements in the list.
+     * @return the number of elements in the list
+     */
+    public int size() {
+        return firstNullIndex;
+    }
+
+    /**
+     * Searches the list for the first occurrence of the specific element.
+     * @param element element to search for
+     * @return the index of the first occurrence of the element, or -1 in case the element was not found
+     */
+    public int indexOf(long element) {
+        for (int i = 0; i < firstNullIndex; i++) {
+            if (values[i] == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Searches the list for the last occurrence of the specific element.
+     * @param element element to search for
+     * @return the index of the last occurrence of the element, or -1 in case the element was not found
+     */
+    public int lastIndexOf(long element) {
+        for (int i = firstNullIndex - 1; i >= 0; i--) {
+            if (values[i] == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Utility method to create the LongComparableList with the specific elements.
+     * @param elements the elements to add to the instance of LongComparableList
+     * @return instance of LongComparableList with the elements added
+     */
+    public static LongComparableList of(long... elements) {
+        LongComparableList list = new LongComparableList();
+        list.addAll(elements);
+        return list;
+    }
+
+    /**
+     * Creates the LongComparableList with the elements of the ComparableList, unboxing each of them once.
+     * @param list the list to copy the elements from
+     * @return instance of LongComparableList with the same elements in the same order
+     */
+    public static LongComparableList from(ComparableList<Long> list) {
+        LongComparableList another = new LongComparableList();
+        another.grow(list.size() + 1);
+        for (int i = 0; i < list.size(); i++) {
+            another.values[i] = list.get(i);
+        }
+        another.firstNullIndex = list.size();
+        return another;
+    }
+
+    /**
+     * Copies the elements to a new ComparableList, boxing each of them.
+     * @return instance of ComparableList with the same elements in the same order
+     */
+    public ComparableList<Long> toComparableList() {
+        ComparableList<Long> list = new ComparableList<>();
+        for (int i = 0; i < firstNullIndex; i++) {
+            list.add(values[i]);
+        }
+        return list;
+    }
+
+    /**
+     * Gets the maximum element from the list.
+     * @return the maximum element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public long max() {
+        checkNotEmpty();
+        long max = values[0];
+        for (int i = 1; i < firstNullIndex; i++) {
+            if (values[i] > max) {
+                max = values[i];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Gets the minimum element from the list.
+     * @return the minimum element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public long min() {
+        checkNotEmpty();
+        long min = values[0];
+        for (int i = 1; i < firstNullIndex; i++) {
+            if (values[i] < min) {
+                min = values[i];
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Gets the random element from the list.
+     * @return the random element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public long random() {
+        checkNotEmpty();
+        return values[(int) (Math.random() * size())];
+    }
+
+    /**
+     * Reverses the list in place.
+     */
+    public void reverse() {
+        for (int i = 0, j = firstNullIndex - 1; i < j; i++, j--) {
+            long temp = values[i];
+            values[i] = values[j];
+            values[j] = temp;
+        }
+    }
+
+    /**
+     * Removes the first occurrence of the specific element from the list.
+     * @param element the element to be removed
+     * @return {@code true} if the element was removed, otherwise {@code false}
+     */
+    public boolean removeValue(long element) {
+        int index = indexOf(element);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    /**
+     * Removes the element from the list at the specific index.
+     * @param index the index where the element should be removed
+     * @return the element removed
+     */
+    public long remove(int index) {
+        checkIndex(index);
+        long removed = values[index];
+        System.arraycopy(values, index + 1, values, index, firstNullIndex - index - 1);
+        firstNullIndex--;
+        return removed;
+    }
+
+    /**
+     * Removes all the occurrences of the specific elements from the list.
+     * @param elements elements to be removed
+     * @return the number of elements removed
+     */
+    public int removeAll(long... elements) {
+        int kept = 0;
+        for (int i = 0; i < firstNullIndex; i++) {
+            long value = values[i];
+            boolean found = false;
+            for (long element : elements) {
+                if (value == element) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                values[kept++] = value;
+            }
+        }
+        int removed = firstNullIndex - kept;
+        firstNullIndex = kept;
+        return removed;
+    }
+
+    /**
+     * Copies the list to an array.
+     * @return list as an array
+     */
+    public long[] toArray() {
+        return Arrays.copyOf(values, firstNullIndex);
+    }
+
+    /**
+     * Sets the element at the specific index to the provided value.
+     * @param index index to be set
+     * @param value value to be set to the element
+     * @return the old element
+     */
+    public long set(int index, long value) {
+        checkIndex(index);
+        long old = values[index];
+        values[index] = value;
+        return old;
+    }
+
+    /**
+     * Swaps two elements in the list.
+     * @param i the first element
+     * @param j the second element
+     */
+    public void swap(int i, int j) {
+        checkIndex(i);
+        checkIndex(j);
+        long temp = values[i];
+        values[i] = values[j];
+        values[j] = temp;
+    }
+
+    /**
+     * Sorts the list in the ascending order.
+     */
+    public void sortAscending() {
+        if (!isSortedAscending()) {
+            Arrays.sort(values, 0, firstNullIndex);
+        }
+    }
+
+    /**
+     * Sorts the list in the descending order.
+     */
+    public void sortDescending() {
+        if (!isSortedDescending()) {
+            Arrays.sort(values, 0, firstNullIndex);
+            reverse();
+        }
+    }
+
+    /**
+     * Sorts the list in the ascending order, splitting the work across the common ForkJoinPool.
+     */
+    public void parallelSortAscending() {
+        if (!isSortedAscending()) {
+            Arrays.parallelSort(values, 0, firstNullIndex);
+        }
+    }
+
+    /**
+     * Sorts the list in the descending order, splitting the work across the common ForkJoinPool.
+     */
+    public void parallelSortDescending() {
+        if (!isSortedDescending()) {
+            Arrays.parallelSort(values, 0, firstNullIndex);
+            reverse();
+        }
+    }
+
+    /**
+     * Produces a readable string representation of the list.
+     * @return the string representation of the list
+     */
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < firstNullIndex; i++) {
+            joiner.add(String.valueOf(values[i]));
+        }
+        return joiner.toString();
+    }
+}
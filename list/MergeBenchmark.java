@@ -0,0 +1,81 @@
+package list;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares merging sorted shards of ComparableList by the k-way merge, sequentially and in parallel,
+ * against adding all the shards to one list and sorting it again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class MergeBenchmark {
+    @Param({"64"})
+    private int shards;
+    @Param({"10000", "1000000"})
+    private int shardSize;
+    private ComparableList<Integer>[] lists;                           // the sorted shards
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        Random random = new Random(42);
+        lists = (ComparableList<Integer>[]) new ComparableList<?>[shards];
+        for (int s = 0; s < shards; s++) {
+            lists[s] = new ComparableList<>(shardSize);
+            for (int i = 0; i < shardSize; i++) {
+                lists[s].add(random.nextInt());
+            }
+            lists[s].sortAscending();
+        }
+    }
+
+    @Benchmark
+    public ComparableList<Integer> merge() {
+        return ComparableList.merge(lists);
+    }
+
+    @Benchmark
+    public ComparableList<Integer> parallelMerge() {
+        return ComparableList.parallelMerge(lists);
+    }
+
+    @Benchmark
+    public ComparableList<Integer> addAllAndSort() {
+        ComparableList<Integer> all = new ComparableList<>(shards * shardSize);
+        for (ComparableList<Integer> list : lists) {
+            for (Integer element : list) {
+                all.add(element);
+            }
+        }
+        all.sortAscending();
+        return all;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MergeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
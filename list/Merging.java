@@ -0,0 +1,245 @@
+package list;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Merging engine for sorted runs. The runs are merged by a loser tree, which finds the next element
+ * with a single comparison per level of the tree, that is about log2(k) comparisons for k runs.
+ * Equal elements keep the order of the runs they come from, so the merge is stable.
+ * <p>
+ * The parallel merge picks splitter values from a sample of the runs, finds them in every run by binary search
+ * and merges the parts between consecutive splitters as independent tasks into their places in the output.
+ */
+final class Merging {
+    private static final int SAMPLES_PER_PART = 8;                     // samples taken per part for the splitters
+
+    private Merging() {
+    }
+
+    /**
+     * Merges the sorted runs into the output array.
+     * @param runs the arrays holding the runs
+     * @param from the first index of every run, inclusive
+     * @param to the last index of every run, exclusive
+     * @param dst the array to write to
+     * @param at the index of {@code dst} to write the first element to
+     * @param comparator the order the runs are sorted in
+     * @param <E> type of elements
+     */
+    static <E> void merge(E[][] runs, int[] from, int[] to, E[] dst, int at, Comparator<? super E> comparator) {
+        new LoserTree<>(runs, from.clone(), to, comparator).drainTo(dst, at);
+    }
+
+    /**
+     * Merges the sorted runs into the output array, splitting the output into parts merged
+     * across the common ForkJoinPool.
+     * @param runs the arrays holding the runs
+     * @param from the first index of every run, inclusive
+     * @param to the last index of every run, exclusive
+     * @param dst the array to write to, from index 0
+     * @param comparator the order the runs are sorted in
+     * @param <E> type of elements
+     */
+    static <E> void parallelMerge(E[][] runs, int[] from, int[] to, E[] dst, Comparator<? super E> comparator) {
+        long total = 0;
+        for (int r = 0; r < runs.length; r++) {
+            total += to[r] - from[r];
+        }
+        int parts = (int) Math.min(4L * ForkJoinPool.getCommonPoolParallelism(), total / Sorting.PARALLEL_THRESHOLD);
+        if (parts < 2) {
+            merge(runs, from, to, dst, 0, comparator);
+            return;
+        }
+        E[] splitters = splitters(runs, from, to, parts, comparator);
+        // bounds[p][r] is the index in run r where part p starts, the elements less than splitter p - 1
+        // are before it, so equal elements of all the runs fall into the same part and stay stable
+        int[][] bounds = new int[splitters.length + 2][];
+        bounds[0] = from;
+        bounds[bounds.length - 1] = to;
+        for (int p = 0; p < splitters.length; p++) {
+            bounds[p + 1] = new int[runs.length];
+            for (int r = 0; r < runs.length; r++) {
+                bounds[p + 1][r] = Sorting.search(runs[r], bounds[p][r], to[r], splitters[p], false, comparator);
+            }
+        }
+        PartTask<?>[] tasks = new PartTask<?>[bounds.length - 1];
+        int at = 0;
+        for (int p = 0; p < tasks.length; p++) {
+            tasks[p] = new PartTask<>(runs, bounds[p], bounds[p + 1], dst, at, comparator);
+            for (int r = 0; r < runs.length; r++) {
+                at += bounds[p + 1][r] - bounds[p][r];
+            }
+        }
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Picks the distinct splitter values dividing a sample of all the runs into parts of equal size.
+     */
+    private static <E> E[] splitters(E[][] runs, int[] from, int[] to, int parts, Comparator<? super E> comparator) {
+        long total = 0;
+        for (int r = 0; r < runs.length; r++) {
+            total += to[r] - from[r];
+        }
+        int wanted = parts * SAMPLES_PER_PART;
+        @SuppressWarnings("unchecked") E[] sample = (E[]) new Object[wanted + runs.length];
+        int size = 0;
+        for (int r = 0; r < runs.length; r++) {
+            // every run gives samples in proportion to its length, evenly spaced
+            int length = to[r] - from[r];
+            int count = (int) Math.min(length, (long) wanted * length / total + 1);
+            for (int i = 0; i < count && length > 0; i++) {
+                sample[size++] = runs[r][from[r] + (int) ((long) i * length / count)];
+            }
+        }
+        Arrays.sort(sample, 0, size, comparator);
+        @SuppressWarnings("unchecked") E[] splitters = (E[]) new Object[parts - 1];
+        int count = 0;
+        for (int p = 1; p < parts; p++) {
+            E splitter = sample[(int) ((long) p * size / parts)];
+            if (count == 0 || comparator.compare(splitters[count - 1], splitter) < 0) {
+                splitters[count++] = splitter;
+            }
+        }
+        return Arrays.copyOf(splitters, count);
+    }
+
+    /**
+     * Tournament tree of the heads of the runs. Every inner node keeps the run which lost the match at it,
+     * the overall winner is kept at index 0. After the winner is taken, only the matches on the path
+     * from its leaf to the root are replayed.
+     */
+    private static final class LoserTree<E> {
+        private final E[][] runs;
+        private final int[] heads;                                     // index of the next element of every run
+        private final int[] ends;                                      // end of every run, exclusive
+        private final E[] keys;                                        // head of every run, null once exhausted
+        private final Comparator<? super E> comparator;
+        private final int[] tree;                                      // losers of the matches, the winner at 0
+        private final int k;                                           // number of runs
+
+        LoserTree(E[][] runs, int[] heads, int[] ends, Comparator<? super E> comparator) {
+            this.runs = runs;
+            this.heads = heads;
+            this.ends = ends;
+            this.comparator = comparator;
+            this.k = runs.length;
+            @SuppressWarnings("unchecked") E[] keys = (E[]) new Object[k];
+            for (int run = 0; run < k; run++) {
+                keys[run] = heads[run] < ends[run] ? runs[run][heads[run]] : null;
+            }
+            this.keys = keys;
+            this.tree = new int[Math.max(1, k)];
+            Arrays.fill(tree, -1);
+            for (int run = k - 1; run >= 0; run--) {
+                build(run);
+            }
+        }
+
+        /**
+         * Plays the run up the tree until it meets a node without a player yet.
+         */
+        private void build(int run) {
+            int winner = run;
+            for (int node = (run + k) >>> 1; node > 0; node >>>= 1) {
+                if (tree[node] < 0) {
+                    tree[node] = winner;
+                    return;
+                }
+                if (beats(tree[node], winner)) {
+                    int loser = winner;
+                    winner = tree[node];
+                    tree[node] = loser;
+                }
+            }
+            tree[0] = winner;
+        }
+
+        /**
+         * Replays the matches on the path from the run to the root.
+         */
+        private void replay(int run) {
+            int winner = run;
+            for (int node = (run + k) >>> 1; node > 0; node >>>= 1) {
+                if (beats(tree[node], winner)) {
+                    int loser = winner;
+                    winner = tree[node];
+                    tree[node] = loser;
+                }
+            }
+            tree[0] = winner;
+        }
+
+        /**
+         * Checks if the head of run a comes before the head of run b. An exhausted run loses every match,
+         * a tie goes to the earlier run.
+         */
+        private boolean beats(int a, int b) {
+            E first = keys[a];
+            if (first == null) {
+                return false;
+            }
+            E second = keys[b];
+            if (second == null) {
+                return true;
+            }
+            int cmp = comparator.compare(first, second);
+            return cmp < 0 || (cmp == 0 && a < b);
+        }
+
+        /**
+         * Writes all the elements of the runs to the array in the merged order.
+         */
+        void drainTo(E[] dst, int at) {
+            if (k == 0) {
+                return;
+            }
+            while (true) {
+                int winner = tree[0];
+                E key = keys[winner];
+                if (key == null) {
+                    return;
+                }
+                dst[at++] = key;
+                int head = ++heads[winner];
+                keys[winner] = head < ends[winner] ? runs[winner][head] : null;
+                replay(winner);
+            }
+        }
+    }
+
+    /**
+     * Merges one part of the runs into its place in the output.
+     */
+    private static final class PartTask<E> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final E[][] runs;
+        private final int[] from;
+        private final int[] to;
+        private final E[] dst;
+        private final int at;
+        private final Comparator<? super E> comparator;
+
+        PartTask(E[][] runs, int[] from, int[] to, E[] dst, int at, Comparator<? super E> comparator) {
+            this.runs = runs;
+            this.from = from;
+            this.to = to;
+            this.dst = dst;
+            this.at = at;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            merge(runs, from, to, dst, at, comparator);
+        }
+    }
+}
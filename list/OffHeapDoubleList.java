@@ -0,0 +1,192 @@
+package list;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+
+/**
+ * Creates a growable array of double values outside the Java heap, in direct memory or in a memory-mapped file.
+ * Only a few small objects are on the heap whatever the number of elements, so even lists of several gigabytes
+ * add nothing to the work of the garbage collector. The memory is released by {@link #close()}.
+ * <p>
+ * A list mapped to a file keeps its elements there: after it is closed, the file holds exactly the elements,
+ * the eight little-endian bytes of the key of each, and mapping it again opens the list with them.
+ * <p>
+ * Every element is stored as a key, a long whose order is the order of {@link Double#compare(double, double)}:
+ * the bits of {@link Double#doubleToLongBits(double)}, with all but the sign bit flipped for negative values.
+ * So sorting, searching, the minimum and the maximum compare plain longs, -0.0 is less than 0.0 and NaN is
+ * greater than any other value, just like in {@link java.util.Arrays#sort(double[])}. For the same reason
+ * {@link #indexOf(double)} finds NaN and tells -0.0 and 0.0 apart.
+ */
+public class OffHeapDoubleList extends OffHeapList {
+
+    /**
+     * Creates an empty list in direct memory.
+     */
+    public OffHeapDoubleList() {
+        this(ComparableList.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty list in direct memory, which can hold the specific number of elements
+     * without reserving more memory.
+     * @param initialCapacity the initial capacity of the list
+     */
+    public OffHeapDoubleList(int initialCapacity) {
+        super(OffHeapStorage.allocate(initialCapacity), 0);
+    }
+
+    private OffHeapDoubleList(OffHeapStorage storage, int size) {
+        super(storage, size);
+    }
+
+    /**
+     * Opens the list mapped to the file. The file is created if it does not exist, otherwise its elements
+     * are the elements of the list.
+     * @param file the file to map
+     * @return the list backed by the file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static OffHeapDoubleList map(Path file) throws IOException {
+        int size = OffHeapStorage.valuesIn(file);
+        return new OffHeapDoubleList(OffHeapStorage.map(file, ComparableList.DEFAULT_CAPACITY), size);
+    }
+
+    /**
+     * Utility method to create the OffHeapDoubleList with the specific elements.
+     * @param elements the elements to add to the instance of OffHeapDoubleList
+     * @return instance of OffHeapDoubleList with the elements added
+     */
+    public static OffHeapDoubleList of(double... elements) {
+        OffHeapDoubleList list = new OffHeapDoubleList(elements.length);
+        list.addAll(elements);
+        return list;
+    }
+
+    /**
+     * Adds the element to the end of the list. If the list is full, more memory is reserved.
+     * @param element the element to be added to the list
+     */
+    public void add(double element) {
+        addKey(key(element));
+    }
+
+    /**
+     * Adds the specified elements to the end of the list.
+     * @param elements the elements to be added
+     * @return the number of elements added
+     */
+    public int addAll(double... elements) {
+        ensureCapacity(firstNullIndex + elements.length);
+        for (double element : elements) {
+            storage.put(firstNullIndex++, key(element));
+        }
+        return elements.length;
+    }
+
+    /**
+     * Checks if the list contains the specified element.
+     * @param element the element to search for
+     * @return {@code true} if the list contains the element, otherwise {@code false}
+     */
+    public boolean contains(double element) {
+        return indexOf(element) >= 0;
+    }
+
+    /**
+     * Searches the list for the first occurrence of the specific element.
+     * @param element element to search for
+     * @return the index of the first occurrence of the element, or -1 in case the element was not found
+     */
+    public int indexOf(double element) {
+        return indexOfKey(key(element));
+    }
+
+    /**
+     * Gets the element at the specified index.
+     * @param index index of the element to be returned
+     * @return the element at the specified index
+     */
+    public double get(int index) {
+        checkIndex(index);
+        return value(storage.get(index));
+    }
+
+    /**
+     * Sets the element at the specific index to the provided value.
+     * @param index index to be set
+     * @param value value to be set to the element
+     * @return the old element
+     */
+    public double set(int index, double value) {
+        checkIndex(index);
+        double old = value(storage.get(index));
+        storage.put(index, key(value));
+        return old;
+    }
+
+    /**
+     * Gets the maximum element from the list.
+     * @return the maximum element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public double max() {
+        return value(maxKey());
+    }
+
+    /**
+     * Gets the minimum element from the list.
+     * @return the minimum element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public double min() {
+        return value(minKey());
+    }
+
+    /**
+     * Copies the list to an array on the heap.
+     * @return list as an array
+     */
+    public double[] toArray() {
+        checkOpen();
+        double[] array = new double[firstNullIndex];
+        for (int i = 0; i < firstNullIndex; i++) {
+            array[i] = value(storage.get(i));
+        }
+        return array;
+    }
+
+    /**
+     * Encodes the value as a key ordered like the values.
+     * @param value the value to encode
+     * @return the key
+     */
+    static long key(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    /**
+     * Decodes the value from its key.
+     * @param key the key made by {@link #key(double)}
+     * @return the value
+     */
+    static double value(long key) {
+        return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+    }
+
+    /**
+     * Produces a readable string representation of the list.
+     * @return the string representation of the list
+     */
+    @Override
+    public String toString() {
+        checkOpen();
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < firstNullIndex; i++) {
+            joiner.add(String.valueOf(value(storage.get(i))));
+        }
+        return joiner.toString();
+    }
+}
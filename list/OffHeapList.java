@@ -0,0 +1,343 @@
+package list;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Common part of the off-heap lists. The values are kept as 8 byte keys in an {@link OffHeapStorage},
+ * ordered the same way as the values they encode, so that searching, sorting, the minimum and the maximum
+ * work on the keys for every element type.
+ */
+abstract class OffHeapList implements AutoCloseable {
+    private static final int INSERTION_SORT_THRESHOLD = 32;            // ranges this short are sorted by insertion
+    final OffHeapStorage storage;                                      // the keys, outside the heap
+    int firstNullIndex;                                                // marks the beginning of the unused part
+
+    OffHeapList(OffHeapStorage storage, int size) {
+        this.storage = storage;
+        this.firstNullIndex = size;
+    }
+
+    /**
+     * Checks if the list is empty.
+     * @return {@code true} if the list is empty, otherwise {@code false}
+     */
+    public boolean isEmpty() {
+        return firstNullIndex == 0;
+    }
+
+    /**
+     * Gets the number of elements in the list.
+     * @return the number of elements in the list
+     */
+    public int size() {
+        return firstNullIndex;
+    }
+
+    /**
+     * Gets the number of bytes the list reserves outside the Java heap.
+     * @return the number of bytes
+     */
+    public long byteSize() {
+        return storage.byteSize();
+    }
+
+    /**
+     * Checks if the list is backed by a memory-mapped file.
+     * @return {@code true} for a mapped file, {@code false} for direct memory
+     */
+    public boolean isMapped() {
+        return storage.isMapped();
+    }
+
+    /**
+     * Checks if the list was closed.
+     * @return {@code true} if the memory of the list was released
+     */
+    public boolean isClosed() {
+        return storage.isClosed();
+    }
+
+    /**
+     * Clears the list. The memory is kept for the next elements.
+     */
+    public void clear() {
+        checkOpen();
+        firstNullIndex = 0;
+    }
+
+    /**
+     * Checks if the elements are sorted in the ascending order.
+     * @return {@code true} if the elements are sorted in the ascending order, otherwise {@code false}
+     */
+    public boolean isSortedAscending() {
+        checkOpen();
+        for (int i = 0; i < firstNullIndex - 1; i++) {
+            if (storage.get(i) > storage.get(i + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the elements are sorted in the descending order.
+     * @return {@code true} if the elements are sorted in the descending order, otherwise {@code false}
+     */
+    public boolean isSortedDescending() {
+        checkOpen();
+        for (int i = 0; i < firstNullIndex - 1; i++) {
+            if (storage.get(i) < storage.get(i + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the list in the ascending order, in place outside the heap.
+     */
+    public void sortAscending() {
+        if (!isSortedAscending()) {
+            sort(0, firstNullIndex, 2 * (31 - Integer.numberOfLeadingZeros(firstNullIndex)));
+        }
+    }
+
+    /**
+     * Sorts the list in the descending order, in place outside the heap.
+     */
+    public void sortDescending() {
+        if (!isSortedDescending()) {
+            sort(0, firstNullIndex, 2 * (31 - Integer.numberOfLeadingZeros(firstNullIndex)));
+            reverse();
+        }
+    }
+
+    /**
+     * Reverses the list in place.
+     */
+    public void reverse() {
+        checkOpen();
+        for (int i = 0, j = firstNullIndex - 1; i < j; i++, j--) {
+            swapKeys(i, j);
+        }
+    }
+
+    /**
+     * Swaps two elements in the list.
+     * @param i the first element
+     * @param j the second element
+     */
+    public void swap(int i, int j) {
+        checkIndex(i);
+        checkIndex(j);
+        swapKeys(i, j);
+    }
+
+    /**
+     * Writes a mapped list to its file, truncated to the elements, and releases the memory of the list.
+     * Closing the list again does nothing.
+     * @throws UncheckedIOException if the mapped file cannot be written
+     */
+    @Override
+    public void close() {
+        try {
+            storage.close(firstNullIndex);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks that the list was not closed.
+     * @throws IllegalStateException if the list is closed
+     */
+    void checkOpen() {
+        if (storage.isClosed()) {
+            throw new IllegalStateException("The list is closed");
+        }
+    }
+
+    /**
+     * Checks that the index is within the bounds.
+     * @param index index to be checked
+     * @throws IndexOutOfBoundsException if the index is not within the bounds of the current array
+     */
+    void checkIndex(int index) {
+        checkOpen();
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(String.format("Index %d ouf of bounds for length %d", index, size()));
+        }
+    }
+
+    /**
+     * Checks that the list has at least one element.
+     * @throws NoSuchElementException if the list is empty
+     */
+    void checkNotEmpty() {
+        checkOpen();
+        if (firstNullIndex == 0) {
+            throw new NoSuchElementException("The list is empty!");
+        }
+    }
+
+    /**
+     * Adds the key to the end of the list, reserving more memory if the list is full.
+     */
+    void addKey(long key) {
+        checkOpen();
+        if (firstNullIndex == storage.capacity()) {
+            if (firstNullIndex == Integer.MAX_VALUE) {
+                throw new OutOfMemoryError("The list cannot hold more than " + Integer.MAX_VALUE + " elements");
+            }
+            storage.ensureCapacity(firstNullIndex + 1);
+        }
+        storage.put(firstNullIndex++, key);
+    }
+
+    /**
+     * Reserves the memory for the specific number of elements.
+     */
+    void ensureCapacity(int minCapacity) {
+        checkOpen();
+        storage.ensureCapacity(minCapacity);
+    }
+
+    /**
+     * Searches the keys from the beginning.
+     */
+    int indexOfKey(long key) {
+        checkOpen();
+        for (int i = 0; i < firstNullIndex; i++) {
+            if (storage.get(i) == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the smallest key of the non-empty list.
+     */
+    long minKey() {
+        checkNotEmpty();
+        long min = storage.get(0);
+        for (int i = 1; i < firstNullIndex; i++) {
+            min = Math.min(min, storage.get(i));
+        }
+        return min;
+    }
+
+    /**
+     * Finds the greatest key of the non-empty list.
+     */
+    long maxKey() {
+        checkNotEmpty();
+        long max = storage.get(0);
+        for (int i = 1; i < firstNullIndex; i++) {
+            max = Math.max(max, storage.get(i));
+        }
+        return max;
+    }
+
+    /**
+     * Swaps the keys at the valid indexes.
+     */
+    private void swapKeys(int i, int j) {
+        long temp = storage.get(i);
+        storage.put(i, storage.get(j));
+        storage.put(j, temp);
+    }
+
+    /**
+     * Sorts the range of keys by introsort: quicksort with the median of three as the pivot, insertion sort for
+     * short ranges and heapsort once the recursion gets too deep, so the worst case stays O(n log n).
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @param depth the number of partitionings left before switching to heapsort
+     */
+    private void sort(int from, int to, int depth) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            if (depth-- == 0) {
+                heapSort(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            if (storage.get(mid) < storage.get(from)) {
+                swapKeys(mid, from);
+            }
+            if (storage.get(to - 1) < storage.get(from)) {
+                swapKeys(to - 1, from);
+            }
+            if (storage.get(to - 1) < storage.get(mid)) {
+                swapKeys(to - 1, mid);
+            }
+            long pivot = storage.get(mid);
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (storage.get(i) < pivot) {
+                    i++;
+                }
+                while (storage.get(j) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swapKeys(i++, j--);
+                }
+            }
+            // recursion into the shorter part keeps the stack depth logarithmic
+            if (j - from < to - i) {
+                sort(from, j + 1, depth);
+                from = i;
+            } else {
+                sort(i, to, depth);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            long key = storage.get(i);
+            int j = i - 1;
+            while (j >= from && storage.get(j) > key) {
+                storage.put(j + 1, storage.get(j));
+                j--;
+            }
+            storage.put(j + 1, key);
+        }
+    }
+
+    /**
+     * Sorts the range of keys by heapsort.
+     */
+    private void heapSort(int from, int to) {
+        int size = to - from;
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(from, i, size);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swapKeys(from, from + end);
+            siftDown(from, 0, end);
+        }
+    }
+
+    /**
+     * Moves the key at the index towards the leaves of the max-heap starting at {@code from}.
+     */
+    private void siftDown(int from, int index, int size) {
+        long key = storage.get(from + index);
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && storage.get(from + child + 1) > storage.get(from + child)) {
+                child++;
+            }
+            if (key >= storage.get(from + child)) {
+                break;
+            }
+            storage.put(from + index, storage.get(from + child));
+            index = child;
+        }
+        storage.put(from + index, key);
+    }
+}
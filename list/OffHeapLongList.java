@@ -0,0 +1,167 @@
+package list;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+
+/**
+ * Creates a growable array of long values outside the Java heap, in direct memory or in a memory-mapped file.
+ * Only a few small objects are on the heap whatever the number of elements, so even lists of several gigabytes
+ * add nothing to the work of the garbage collector. The memory is released by {@link #close()}.
+ * <p>
+ * A list mapped to a file keeps its elements there: after it is closed, the file holds exactly the elements,
+ * eight little-endian bytes each, and mapping it again opens the list with them.
+ */
+public class OffHeapLongList extends OffHeapList {
+
+    /**
+     * Creates an empty list in direct memory.
+     */
+    public OffHeapLongList() {
+        this(ComparableList.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty list in direct memory, which can hold the specific number of elements
+     * without reserving more memory.
+     * @param initialCapacity the initial capacity of the list
+     */
+    public OffHeapLongList(int initialCapacity) {
+        super(OffHeapStorage.allocate(initialCapacity), 0);
+    }
+
+    private OffHeapLongList(OffHeapStorage storage, int size) {
+        super(storage, size);
+    }
+
+    /**
+     * Opens the list mapped to the file. The file is created if it does not exist, otherwise its elements
+     * are the elements of the list.
+     * @param file the file to map
+     * @return the list backed by the file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static OffHeapLongList map(Path file) throws IOException {
+        int size = OffHeapStorage.valuesIn(file);
+        return new OffHeapLongList(OffHeapStorage.map(file, ComparableList.DEFAULT_CAPACITY), size);
+    }
+
+    /**
+     * Utility method to create the OffHeapLongList with the specific elements.
+     * @param elements the elements to add to the instance of OffHeapLongList
+     * @return instance of OffHeapLongList with the elements added
+     */
+    public static OffHeapLongList of(long... elements) {
+        OffHeapLongList list = new OffHeapLongList(elements.length);
+        list.addAll(elements);
+        return list;
+    }
+
+    /**
+     * Adds the element to the end of the list. If the list is full, more memory is reserved.
+     * @param element the element to be added to the list
+     */
+    public void add(long element) {
+        addKey(element);
+    }
+
+    /**
+     * Adds the specified elements to the end of the list.
+     * @param elements the elements to be added
+     * @return the number of elements added
+     */
+    public int addAll(long... elements) {
+        ensureCapacity(firstNullIndex + elements.length);
+        for (long element : elements) {
+            storage.put(firstNullIndex++, element);
+        }
+        return elements.length;
+    }
+
+    /**
+     * Checks if the list contains the specified element.
+     * @param element the element to search for
+     * @return {@code true} if the list contains the element, otherwise {@code false}
+     */
+    public boolean contains(long element) {
+        return indexOf(element) >= 0;
+    }
+
+    /**
+     * Searches the list for the first occurrence of the specific element.
+     * @param element element to search for
+     * @return the index of the first occurrence of the element, or -1 in case the element was not found
+     */
+    public int indexOf(long element) {
+        return indexOfKey(element);
+    }
+
+    /**
+     * Gets the element at the specified index.
+     * @param index index of the element to be returned
+     * @return the element at the specified index
+     */
+    public long get(int index) {
+        checkIndex(index);
+        return storage.get(index);
+    }
+
+    /**
+     * Sets the element at the specific index to the provided value.
+     * @param index index to be set
+     * @param value value to be set to the element
+     * @return the old element
+     */
+    public long set(int index, long value) {
+        checkIndex(index);
+        long old = storage.get(index);
+        storage.put(index, value);
+        return old;
+    }
+
+    /**
+     * Gets the maximum element from the list.
+     * @return the maximum element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public long max() {
+        return maxKey();
+    }
+
+    /**
+     * Gets the minimum element from the list.
+     * @return the minimum element
+     * @throws NoSuchElementException if the list is empty
+     */
+    public long min() {
+        return minKey();
+    }
+
+    /**
+     * Copies the list to an array on the heap.
+     * @return list as an array
+     */
+    public long[] toArray() {
+        checkOpen();
+        long[] array = new long[firstNullIndex];
+        for (int i = 0; i < firstNullIndex; i++) {
+            array[i] = storage.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Produces a readable string representation of the list.
+     * @return the string representation of the list
+     */
+    @Override
+    public String toString() {
+        checkOpen();
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < firstNullIndex; i++) {
+            joiner.add(String.valueOf(storage.get(i)));
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package list;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffHeapLongListTest {
+    private final OffHeapLongList list = new OffHeapLongList();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void close() {
+        list.close();
+    }
+
+    @Test
+    void growing() {
+        for (int i = 0; i < 100_000; i++) {
+            list.add(i);
+        }
+        assertEquals(100_000, list.size());
+        assertEquals(99_999, list.get(99_999));
+        assertTrue(list.byteSize() >= 100_000 * 8L);
+    }
+
+    @Test
+    void sorting() {
+        Random random = new Random(3);
+        long[] expected = new long[200_000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = random.nextInt(1000) - 500L;
+            list.add(expected[i]);
+        }
+        list.sortAscending();
+        Arrays.sort(expected);
+        assertArrayEquals(expected, list.toArray());
+        list.sortDescending();
+        assertTrue(list.isSortedDescending());
+        assertEquals(expected[0], list.get(list.size() - 1));
+    }
+
+    @Test
+    void minMaxSet() {
+        assertThrows(NoSuchElementException.class, list::max);
+        list.addAll(5, -3, 8);
+        assertEquals(-3, list.min());
+        assertEquals(8, list.max());
+        assertEquals(8, list.set(2, 1));
+        assertEquals(5, list.max());
+        assertEquals(1, list.indexOf(-3));
+        assertFalse(list.contains(8));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(3));
+        assertEquals("[5, -3, 1]", list.toString());
+    }
+
+    @Test
+    void closing() {
+        list.add(1);
+        list.close();
+        assertTrue(list.isClosed());
+        assertThrows(IllegalStateException.class, () -> list.get(0));
+        assertThrows(IllegalStateException.class, () -> list.add(2));
+        list.close();
+    }
+
+    @Test
+    void mapping() throws IOException {
+        Path file = directory.resolve("values.bin");
+        try (OffHeapLongList mapped = OffHeapLongList.map(file)) {
+            assertTrue(mapped.isMapped());
+            for (long i = 0; i < 50_000; i++) {
+                mapped.add(50_000 - i);
+            }
+            mapped.sortAscending();
+        }
+        assertEquals(50_000 * 8L, Files.size(file));
+        try (OffHeapLongList mapped = OffHeapLongList.map(file)) {
+            assertEquals(50_000, mapped.size());
+            assertEquals(1, mapped.min());
+            assertTrue(mapped.isSortedAscending());
+            mapped.add(0);
+        }
+        try (OffHeapLongList mapped = OffHeapLongList.map(file)) {
+            assertEquals(50_001, mapped.size());
+            assertEquals(0, mapped.get(50_000));
+        }
+    }
+
+    @Test
+    void doubles() {
+        try (OffHeapDoubleList doubles = OffHeapDoubleList.of(2.5, -0.0, Double.NaN, 0.0, -7.25, Double.NEGATIVE_INFINITY)) {
+            assertEquals(Double.NEGATIVE_INFINITY, doubles.min());
+            assertEquals(Double.NaN, doubles.max());
+            doubles.sortAscending();
+            assertArrayEquals(new double[]{Double.NEGATIVE_INFINITY, -7.25, -0.0, 0.0, 2.5, Double.NaN},
+                              doubles.toArray());
+            assertEquals(2, doubles.indexOf(-0.0));
+            assertEquals(5, doubles.indexOf(Double.NaN));
+            assertEquals(2.5, doubles.set(4, 1.5));
+            doubles.sortDescending();
+            assertEquals(Double.NaN, doubles.get(0));
+            assertEquals(Double.NEGATIVE_INFINITY, doubles.get(5));
+        }
+    }
+}
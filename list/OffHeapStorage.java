@@ -0,0 +1,260 @@
+package list;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Memory outside the Java heap for 8 byte wide values, either direct memory or a memory-mapped file.
+ * A single ByteBuffer cannot address more than 2 GB, so the values are split into chunks of
+ * {@code 1 << CHUNK_SHIFT} values. While there is only one chunk it grows by doubling, so small lists
+ * do not reserve a whole chunk, after that whole chunks are added and no value is ever copied again.
+ * <p>
+ * The values are stored in the little-endian byte order, so a mapped file can be read on any platform.
+ * The memory is released by {@link #close(int)} instead of waiting for the buffers to be garbage collected.
+ */
+final class OffHeapStorage {
+    static final int CHUNK_SHIFT = 24;                                 // 16M values, 128 MB per chunk
+    static final int CHUNK_VALUES = 1 << CHUNK_SHIFT;                  // number of values in a full chunk
+    private static final int CHUNK_MASK = CHUNK_VALUES - 1;            // position of a value in its chunk
+    private static final Object UNSAFE;                                // sun.misc.Unsafe, null if not available
+    private static final Method INVOKE_CLEANER;                        // releases the memory of a buffer
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // the buffers are released when they are garbage collected
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final FileChannel channel;                                 // mapped file, null for direct memory
+    private ByteBuffer[] chunks = new ByteBuffer[0];                   // the values, null once closed
+    private int capacity;                                              // number of values the chunks can hold
+
+    private OffHeapStorage(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Allocates direct memory for the specific number of values.
+     * @param initialCapacity the number of values
+     * @return the storage in direct memory
+     */
+    static OffHeapStorage allocate(int initialCapacity) {
+        OffHeapStorage storage = new OffHeapStorage(null);
+        storage.ensureCapacity(Math.max(1, initialCapacity));
+        return storage;
+    }
+
+    /**
+     * Maps the file into memory, creating it if it does not exist. The values already in the file are kept.
+     * @param file the file to map
+     * @param initialCapacity the number of values the mapping should hold at least
+     * @return the storage mapped to the file
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    static OffHeapStorage map(Path file, int initialCapacity) throws IOException {
+        int values = valuesIn(file);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        OffHeapStorage storage = new OffHeapStorage(channel);
+        try {
+            storage.ensureCapacity(Math.max(1, Math.max(initialCapacity, values)));
+        } catch (UncheckedIOException e) {
+            channel.close();
+            throw e.getCause();
+        }
+        return storage;
+    }
+
+    /**
+     * Gets the number of whole values in the file.
+     * @param file the file, which does not have to exist
+     * @return the number of values, 0 if there is no such file
+     * @throws IOException if the file cannot be read or holds too many values
+     */
+    static int valuesIn(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long values = Files.size(file) >>> 3;
+        if (values > Integer.MAX_VALUE) {
+            throw new IOException("The file holds more than " + Integer.MAX_VALUE + " values");
+        }
+        return (int) values;
+    }
+
+    /**
+     * Gets the value at the specific index.
+     * @param index the index within the capacity
+     * @return the value
+     */
+    long get(int index) {
+        return chunks[index >>> CHUNK_SHIFT].getLong((index & CHUNK_MASK) << 3);
+    }
+
+    /**
+     * Sets the value at the specific index.
+     * @param index the index within the capacity
+     * @param value the value
+     */
+    void put(int index, long value) {
+        chunks[index >>> CHUNK_SHIFT].putLong((index & CHUNK_MASK) << 3, value);
+    }
+
+    /**
+     * Gets the number of values the storage can hold.
+     * @return the capacity
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of bytes reserved outside the heap.
+     * @return the number of bytes
+     */
+    long byteSize() {
+        return (long) capacity << 3;
+    }
+
+    /**
+     * Checks if the storage is a memory-mapped file.
+     * @return {@code true} for a mapped file, {@code false} for direct memory
+     */
+    boolean isMapped() {
+        return channel != null;
+    }
+
+    /**
+     * Checks if the memory was released.
+     * @return {@code true} if the storage was closed
+     */
+    boolean isClosed() {
+        return chunks == null;
+    }
+
+    /**
+     * Makes sure the storage can hold the specific number of values.
+     * @param minCapacity the number of values
+     * @throws UncheckedIOException if the mapped file cannot be extended
+     */
+    void ensureCapacity(int minCapacity) {
+        if (minCapacity <= capacity) {
+            return;
+        }
+        if (chunks.length <= 1 && minCapacity <= CHUNK_VALUES) {
+            int grown = (int) Math.min(CHUNK_VALUES, Math.max(minCapacity, 2L * capacity));
+            replaceChunk(0, grown);
+            return;
+        }
+        if (chunks.length == 1 && capacity < CHUNK_VALUES) {
+            replaceChunk(0, CHUNK_VALUES);
+        }
+        int count = (int) (((long) minCapacity + CHUNK_MASK) >>> CHUNK_SHIFT);
+        int from = chunks.length;
+        chunks = Arrays.copyOf(chunks, count);
+        for (int i = from; i < count; i++) {
+            chunks[i] = chunk(i, CHUNK_VALUES);
+            capacity = (int) Math.min(Integer.MAX_VALUE, (long) (i + 1) << CHUNK_SHIFT);
+        }
+    }
+
+    /**
+     * Replaces the chunk by a larger one with the same values.
+     */
+    private void replaceChunk(int index, int values) {
+        ByteBuffer old = chunks.length > index ? chunks[index] : null;
+        ByteBuffer chunk = chunk(index, values);
+        if (old != null) {
+            if (channel == null) {
+                chunk.put(0, old, 0, old.capacity());
+            } else {
+                ((MappedByteBuffer) old).force();
+            }
+            release(old);
+        }
+        if (chunks.length <= index) {
+            chunks = Arrays.copyOf(chunks, index + 1);
+        }
+        chunks[index] = chunk;
+        capacity = (int) Math.min(Integer.MAX_VALUE, ((long) index << CHUNK_SHIFT) + values);
+    }
+
+    /**
+     * Allocates or maps a chunk for the specific number of values.
+     */
+    private ByteBuffer chunk(int index, int values) {
+        long bytes = (long) values << 3;
+        ByteBuffer chunk;
+        if (channel == null) {
+            chunk = ByteBuffer.allocateDirect((int) bytes);
+        } else {
+            try {
+                chunk = channel.map(FileChannel.MapMode.READ_WRITE, (long) index << (CHUNK_SHIFT + 3), bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return chunk.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Releases the memory. A mapped file is written to the disk and truncated to the specific number of values,
+     * so that it can be mapped again with exactly those values.
+     * @param size the number of values in use
+     * @throws IOException if the mapped file cannot be written or truncated
+     */
+    void close(int size) throws IOException {
+        if (chunks == null) {
+            return;
+        }
+        ByteBuffer[] released = chunks;
+        chunks = null;
+        capacity = 0;
+        for (ByteBuffer chunk : released) {
+            if (channel != null) {
+                ((MappedByteBuffer) chunk).force();
+            }
+            release(chunk);
+        }
+        if (channel != null) {
+            try (channel) {
+                channel.truncate((long) size << 3);
+            }
+        }
+    }
+
+    /**
+     * Releases the memory of the buffer right away, if the VM allows it. The buffer must not be used afterwards.
+     * @param buffer a direct or mapped buffer, not a slice or a duplicate
+     */
+    static void release(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException e) {
+            // left for the garbage collector
+        }
+    }
+}
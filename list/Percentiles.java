@@ -0,0 +1,119 @@
+package list;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Snapshot of the elements of a ComparableList for answering many order-statistics queries. The elements
+ * are copied once and every query runs introselect only within the range between the nearest elements
+ * already known to be in their sorted places, so later queries get cheaper and the copy is never fully sorted
+ * unless all the ranks are asked for. Changes of the list made afterwards are not seen by the snapshot.
+ * <p>
+ * Percentiles use the nearest-rank method: the p-th percentile is the smallest element such that at least
+ * p percent of the elements are less than or equal to it.
+ * @param <E> type of elements the list contains
+ */
+public final class Percentiles<E extends Comparable<E>> {
+    private final E[] elements;                                        // copy of the elements, partially sorted
+    private final boolean[] placed;                                    // elements in their sorted places
+
+    Percentiles(E[] elements, boolean sorted) {
+        this.elements = elements;
+        this.placed = new boolean[elements.length];
+        if (sorted) {
+            Arrays.fill(placed, true);
+        }
+    }
+
+    /**
+     * Gets the number of elements in the snapshot.
+     * @return the number of elements
+     */
+    public int size() {
+        return elements.length;
+    }
+
+    /**
+     * Gets the element which would be at the specific index if the elements were sorted in the ascending order.
+     * @param k the index in the sorted order, 0 for the minimum
+     * @return the element of rank k
+     * @throws IndexOutOfBoundsException if k is not within the bounds of the snapshot
+     */
+    public E nthElement(int k) {
+        if (k < 0 || k >= elements.length) {
+            throw new IndexOutOfBoundsException(String.format("Index %d ouf of bounds for length %d", k, elements.length));
+        }
+        if (!placed[k]) {
+            int from = k;
+            while (from > 0 && !placed[from - 1]) {
+                from--;
+            }
+            int to = k + 1;
+            while (to < elements.length && !placed[to]) {
+                to++;
+            }
+            Selection.select(elements, from, to, k, Comparator.naturalOrder(), placed);
+        }
+        return elements[k];
+    }
+
+    /**
+     * Gets the median, the lower one of the two middle elements if their number is even.
+     * @return the median or {@code null} if the snapshot is empty
+     */
+    public E median() {
+        return percentile(50);
+    }
+
+    /**
+     * Gets the p-th percentile by the nearest-rank method.
+     * @param p the percentile, from 0 to 100
+     * @return the percentile or {@code null} if the snapshot is empty
+     * @throws IllegalArgumentException if p is not within 0 and 100
+     */
+    public E percentile(double p) {
+        if (!(p >= 0 && p <= 100)) {
+            throw new IllegalArgumentException("Percentile must be within 0 and 100: " + p);
+        }
+        if (elements.length == 0) {
+            System.out.println("The list is empty!");
+            return null;
+        }
+        return nthElement(rank(p, elements.length));
+    }
+
+    /**
+     * Gets several percentiles at once. They are selected from the lowest, so each of them narrows the range
+     * left for the next ones.
+     * @param ps the percentiles, from 0 to 100
+     * @return the list of the percentiles in the order of {@code ps}, empty if the snapshot is empty
+     * @throws IllegalArgumentException if one of ps is not within 0 and 100
+     */
+    public ComparableList<E> percentiles(double... ps) {
+        ComparableList<E> result = new ComparableList<>(ps.length);
+        if (elements.length == 0) {
+            return result;
+        }
+        double[] ordered = ps.clone();
+        Arrays.sort(ordered);
+        for (double p : ordered) {
+            percentile(p);
+        }
+        for (double p : ps) {
+            result.add(elements[rank(p, elements.length)]);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the index of the p-th percentile by the nearest-rank method.
+     * @param p the percentile, from 0 to 100
+     * @param size the number of elements, at least 1
+     * @return the index in the sorted order
+     */
+    static int rank(double p, int size) {
+        // p * size first, so that whole percentiles of whole sizes stay exact
+        int rank = (int) Math.ceil(p * size / 100);
+        return Math.max(0, Math.min(size, rank) - 1);
+    }
+}
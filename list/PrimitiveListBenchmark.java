@@ -0,0 +1,108 @@
+package list;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the boxed ComparableList with its primitive siblings. Each benchmark fills a list with
+ * {@code size} random values, so {@code gc.alloc.rate.norm} reported by the GC profiler divided by
+ * {@code size} is the number of bytes allocated per element.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveListBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+    private int[] ints;                                                // values to fill the lists with
+    private long[] longs;
+    private double[] doubles;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ints = random.ints(size).toArray();
+        longs = random.longs(size).toArray();
+        doubles = random.doubles(size).toArray();
+    }
+
+    @Benchmark
+    public ComparableList<Integer> boxedInts() {
+        ComparableList<Integer> list = new ComparableList<>();
+        for (int value : ints) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public IntComparableList primitiveInts() {
+        IntComparableList list = new IntComparableList();
+        for (int value : ints) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public ComparableList<Long> boxedLongs() {
+        ComparableList<Long> list = new ComparableList<>();
+        for (long value : longs) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public LongComparableList primitiveLongs() {
+        LongComparableList list = new LongComparableList();
+        for (long value : longs) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public ComparableList<Double> boxedDoubles() {
+        ComparableList<Double> list = new ComparableList<>();
+        for (double value : doubles) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @Benchmark
+    public DoubleComparableList primitiveDoubles() {
+        DoubleComparableList list = new DoubleComparableList();
+        for (double value : doubles) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PrimitiveListBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,233 @@
+package list;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Selection of the greatest elements of an array by a bounded heap, so that the k greatest elements
+ * are found in O(n log k) time and O(k) memory without sorting the array, and selection of the element
+ * of a specific rank by introselect in expected O(n) time.
+ */
+final class Selection {
+    private static final int INSERTION_SORT_THRESHOLD = 16;           // ranges this short are sorted at once
+
+    private Selection() {
+    }
+
+    /**
+     * Finds the k greatest elements of the range in the specific order.
+     * @param a the array to select from, it is not modified
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @param k the number of elements to select
+     * @param comparator the order deciding which elements are the greatest
+     * @param <E> type of elements
+     * @return at most k elements, from the greatest to the smallest
+     */
+    static <E> E[] top(E[] a, int from, int to, int k, Comparator<? super E> comparator) {
+        int size = Math.min(k, to - from);
+        E[] heap = Arrays.copyOfRange(a, from, from + size);
+        if (size == 0) {
+            return heap;
+        }
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, i, size, comparator);
+        }
+        for (int i = from + size; i < to; i++) {
+            E value = a[i];
+            if (comparator.compare(value, heap[0]) > 0) {
+                heap[0] = value;
+                siftDown(heap, 0, size, comparator);
+            }
+        }
+        // the smallest of the heap is moved to the end until the heap is empty
+        for (int end = size - 1; end > 0; end--) {
+            E temp = heap[0];
+            heap[0] = heap[end];
+            heap[end] = temp;
+            siftDown(heap, 0, end, comparator);
+        }
+        return heap;
+    }
+
+    /**
+     * Finds the k greatest elements of the range in the specific order, splitting the range across
+     * the common ForkJoinPool and merging the partial results.
+     * @param a the array to select from, it is not modified
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @param k the number of elements to select
+     * @param comparator the order deciding which elements are the greatest
+     * @param <E> type of elements
+     * @return at most k elements, from the greatest to the smallest
+     */
+    static <E> E[] parallelTop(E[] a, int from, int to, int k, Comparator<? super E> comparator) {
+        if (to - from <= Sorting.PARALLEL_THRESHOLD) {
+            return top(a, from, to, k, comparator);
+        }
+        return ForkJoinPool.commonPool().invoke(new TopTask<>(a, from, to, k, comparator));
+    }
+
+    /**
+     * Moves the element of rank k of the range to index k, with the smaller or equal elements before it and
+     * the greater or equal elements after it. The range is partitioned around the median of three, keeping
+     * the part holding index k, in three ways, so that duplicates end the search early. If the partitioning
+     * goes too deep, the rest of the range is sorted, which bounds the worst case to O(n log n).
+     * @param a the array to select in, it is reordered
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @param k the index to select, within the range
+     * @param comparator the order of the elements
+     * @param placed marks the indexes whose elements are known to be in their sorted places, updated on the way,
+     *               or {@code null}
+     * @param <E> type of elements
+     */
+    static <E> void select(E[] a, int from, int to, int k, Comparator<? super E> comparator, boolean[] placed) {
+        int depth = 2 * (31 - Integer.numberOfLeadingZeros(Math.max(1, to - from)));
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            if (depth-- == 0) {
+                Sorting.sort(a, from, to, comparator);
+                mark(placed, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            E pivot = medianOfThree(a[from], a[mid], a[to - 1], comparator);
+            int less = from;
+            int greater = to;
+            int i = from;
+            while (i < greater) {
+                int cmp = comparator.compare(a[i], pivot);
+                if (cmp < 0) {
+                    swap(a, less++, i++);
+                } else if (cmp > 0) {
+                    swap(a, i, --greater);
+                } else {
+                    i++;
+                }
+            }
+            // the elements equal to the pivot are in their sorted places
+            mark(placed, less, greater);
+            if (k < less) {
+                to = less;
+            } else if (k >= greater) {
+                from = greater;
+            } else {
+                return;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            E value = a[i];
+            int j = i - 1;
+            while (j >= from && comparator.compare(a[j], value) > 0) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = value;
+        }
+        mark(placed, from, to);
+    }
+
+    /**
+     * Finds the median of three elements.
+     */
+    private static <E> E medianOfThree(E x, E y, E z, Comparator<? super E> comparator) {
+        if (comparator.compare(x, y) > 0) {
+            E temp = x;
+            x = y;
+            y = temp;
+        }
+        if (comparator.compare(y, z) <= 0) {
+            return y;
+        }
+        return comparator.compare(x, z) >= 0 ? x : z;
+    }
+
+    /**
+     * Marks the range as being in its sorted places, if the marks are kept.
+     */
+    private static void mark(boolean[] placed, int from, int to) {
+        if (placed != null) {
+            Arrays.fill(placed, from, to, true);
+        }
+    }
+
+    /**
+     * Swaps two elements of the array.
+     */
+    private static <E> void swap(E[] a, int i, int j) {
+        E temp = a[i];
+        a[i] = a[j];
+        a[j] = temp;
+    }
+
+    /**
+     * Moves the element at the index towards the leaves of the min-heap of the specific size.
+     */
+    private static <E> void siftDown(E[] heap, int index, int size, Comparator<? super E> comparator) {
+        E value = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && comparator.compare(heap[child + 1], heap[child]) < 0) {
+                child++;
+            }
+            if (comparator.compare(value, heap[child]) <= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+
+    /**
+     * Merges two arrays ordered from the greatest to the smallest, keeping at most k elements.
+     */
+    private static <E> E[] merge(E[] left, E[] right, int k, Comparator<? super E> comparator) {
+        E[] merged = Arrays.copyOf(left, Math.min(k, left.length + right.length));
+        int i = 0;
+        int j = 0;
+        for (int at = 0; at < merged.length; at++) {
+            if (j == right.length || (i < left.length && comparator.compare(left[i], right[j]) >= 0)) {
+                merged[at] = left[i++];
+            } else {
+                merged[at] = right[j++];
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Selects the greatest elements of the halves of the range as subtasks and merges them.
+     */
+    private static final class TopTask<E> extends RecursiveTask<E[]> {
+        private static final long serialVersionUID = 1L;
+        private final E[] a;
+        private final int from;
+        private final int to;
+        private final int k;
+        private final Comparator<? super E> comparator;
+
+        TopTask(E[] a, int from, int to, int k, Comparator<? super E> comparator) {
+            this.a = a;
+            this.from = from;
+            this.to = to;
+            this.k = k;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected E[] compute() {
+            if (to - from <= Sorting.PARALLEL_THRESHOLD) {
+                return top(a, from, to, k, comparator);
+            }
+            int mid = (from + to) >>> 1;
+            TopTask<E> left = new TopTask<>(a, from, mid, k, comparator);
+            left.fork();
+            E[] right = new TopTask<>(a, mid, to, k, comparator).compute();
+            return merge(left.join(), right, k, comparator);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package list;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot of the elements of a ComparableList.
+ * <p>
+ * The file starts with a 16 byte header: the magic number, the format version, the encoding of the elements,
+ * the flags (bit 0 is the sorted mode) and the number of elements. The elements follow in the list order,
+ * in the little-endian byte order: Integer as 4 bytes, Long and Double as 8 bytes, String as its length
+ * in UTF-8 bytes written as a variable-length integer, followed by those bytes.
+ * <p>
+ * Snapshots are written through a FileChannel in large blocks and read from memory-mapped windows of the file,
+ * decoding straight into an array of the right size.
+ */
+final class Snapshot {
+    static final int HEADER_BYTES = 16;                                // size of the header
+    private static final int MAGIC = 0x54534C43;                       // "CLST" in the little-endian byte order
+    private static final byte VERSION = 1;                             // version of the format
+    private static final int SORTED = 1;                               // flag of the sorted mode
+    private static final int BUFFER_BYTES = 1 << 20;                   // size of the block written at once
+    private static final int WINDOW_BYTES = 1 << 30;                   // size of the file mapped at once
+    private static final int CHUNK = 8192;                             // number of numbers decoded at once
+
+    /**
+     * Encoding of the elements, its ordinal is written to the header.
+     */
+    enum Encoding {
+        /** no elements, so no encoding is needed */
+        NONE(0),
+        INTEGER(Integer.BYTES),
+        LONG(Long.BYTES),
+        DOUBLE(Double.BYTES),
+        /** variable-length UTF-8 */
+        STRING(0);
+
+        private final int width;                                       // bytes per element, 0 if it varies
+
+        Encoding(int width) {
+            this.width = width;
+        }
+    }
+
+    /**
+     * Elements read from a snapshot.
+     * @param values the elements, the array has exactly their number
+     * @param sorted whether the list was in the sorted mode
+     */
+    record Content(Comparable<?>[] values, boolean sorted) {
+    }
+
+    private Snapshot() {
+    }
+
+    /**
+     * Finds the encoding of the elements, which all have to be of the same supported class.
+     * @throws IllegalArgumentException if there is no binary encoding for the elements
+     */
+    static Encoding encoding(Object[] values, int size) {
+        if (size == 0) {
+            return Encoding.NONE;
+        }
+        Class<?> type = values[0].getClass();
+        Encoding encoding;
+        if (type == Integer.class) {
+            encoding = Encoding.INTEGER;
+        } else if (type == Long.class) {
+            encoding = Encoding.LONG;
+        } else if (type == Double.class) {
+            encoding = Encoding.DOUBLE;
+        } else if (type == String.class) {
+            encoding = Encoding.STRING;
+        } else {
+            throw new IllegalArgumentException("No binary encoding for " + type.getName());
+        }
+        for (int i = 1; i < size; i++) {
+            if (values[i].getClass() != type) {
+                throw new IllegalArgumentException("No binary encoding for mixed " + type.getName()
+                                                   + " and " + values[i].getClass().getName());
+            }
+        }
+        return encoding;
+    }
+
+    /**
+     * Writes the elements to the file, replacing its content.
+     * @param values the elements, contiguous from index 0
+     * @param size the number of elements
+     * @param sorted whether the list is in the sorted mode
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if there is no binary encoding for the elements
+     */
+    static void write(Object[] values, int size, boolean sorted, Path file) throws IOException {
+        Encoding encoding = encoding(values, size);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                buffer.putInt(MAGIC).put(VERSION).put((byte) encoding.ordinal()).put((byte) (sorted ? SORTED : 0))
+                      .put((byte) 0).putInt(size).putInt(0);
+                int i = 0;
+                while (i < size) {
+                    if (encoding == Encoding.STRING) {
+                        byte[] bytes = ((String) values[i++]).getBytes(StandardCharsets.UTF_8);
+                        if (buffer.remaining() < 5) {
+                            flush(channel, buffer);
+                        }
+                        putVarInt(buffer, bytes.length);
+                        for (int at = 0; at < bytes.length; ) {
+                            if (!buffer.hasRemaining()) {
+                                flush(channel, buffer);
+                            }
+                            int length = Math.min(buffer.remaining(), bytes.length - at);
+                            buffer.put(bytes, at, length);
+                            at += length;
+                        }
+                        continue;
+                    }
+                    // as many numbers as fit the buffer are written without checking the room for each of them
+                    int end = Math.min(size, i + buffer.remaining() / encoding.width);
+                    switch (encoding) {
+                        case INTEGER -> {
+                            for (; i < end; i++) {
+                                buffer.putInt((Integer) values[i]);
+                            }
+                        }
+                        case LONG -> {
+                            for (; i < end; i++) {
+                                buffer.putLong((Long) values[i]);
+                            }
+                        }
+                        default -> {
+                            for (; i < end; i++) {
+                                buffer.putDouble((Double) values[i]);
+                            }
+                        }
+                    }
+                    flush(channel, buffer);
+                }
+                flush(channel, buffer);
+            } finally {
+                OffHeapStorage.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Writes the content of the buffer to the channel and clears the buffer.
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the non-negative value in 7 bit groups, the highest bit of a byte tells another one follows.
+     */
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads the elements from the file, mapping it into memory.
+     * @param file the file to read
+     * @return the elements and the sorted mode
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    static Content read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Reader reader = new Reader(channel);
+            try {
+                reader.ensure(HEADER_BYTES);
+                ByteBuffer header = reader.window;
+                if (header.getInt() != MAGIC) {
+                    throw new IOException("Not a ComparableList snapshot: " + file);
+                }
+                byte version = header.get();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported snapshot version " + version + ": " + file);
+                }
+                int ordinal = header.get();
+                if (ordinal < 0 || ordinal >= Encoding.values().length) {
+                    throw new IOException("Unknown encoding " + ordinal + ": " + file);
+                }
+                Encoding encoding = Encoding.values()[ordinal];
+                boolean sorted = (header.get() & SORTED) != 0;
+                header.get();
+                int size = header.getInt();
+                header.getInt();
+                if (size < 0 || (encoding == Encoding.NONE && size != 0)
+                        || (long) size * encoding.width > channel.size() - HEADER_BYTES) {
+                    throw new IOException("Truncated snapshot: " + file);
+                }
+                return new Content(reader.values(encoding, size), sorted);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException("Truncated snapshot: " + file, e);
+            } finally {
+                reader.release();
+            }
+        }
+    }
+
+    /**
+     * Reads the file through a mapped window, moving the window forward as the elements are decoded.
+     */
+    private static final class Reader {
+        private final FileChannel channel;
+        private final long fileSize;                                       // the file is not expected to change
+        private ByteBuffer window = ByteBuffer.allocate(0);                // the mapped part of the file
+        private long offset;                                               // position of the window in the file
+
+        Reader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.fileSize = channel.size();
+        }
+
+        /**
+         * Makes sure the window holds at least the specific number of bytes, mapping the next part if it does not.
+         * @throws BufferUnderflowException if the file is shorter
+         */
+        void ensure(int bytes) throws IOException {
+            if (window.remaining() >= bytes) {
+                return;
+            }
+            long position = offset + window.position();
+            long length = Math.min(Math.max(WINDOW_BYTES, bytes), fileSize - position);
+            if (length < bytes) {
+                throw new BufferUnderflowException();
+            }
+            release();
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+            offset = position;
+        }
+
+        /**
+         * Decodes the specific number of elements. The counts read from the file are checked against its size
+         * before anything is allocated for them, so a corrupt file cannot exhaust the memory.
+         * @throws IOException if the file is too short for the elements
+         */
+        Comparable<?>[] values(Encoding encoding, int size) throws IOException {
+            // every element takes at least a byte, the length of an empty string
+            if (size < 0 || (long) size * Math.max(1, encoding.width) > remainingInFile()) {
+                throw new IOException("Invalid element count " + size + ", " + remainingInFile() + " bytes left");
+            }
+            Comparable<?>[] values = new Comparable<?>[size];
+            if (encoding == Encoding.STRING) {
+                for (int i = 0; i < size; i++) {
+                    ensure(Math.min(5, remainingInFile()));
+                    int length = getVarInt();
+                    if (length > remainingInFile()) {
+                        throw new IOException("Invalid string length " + length + ", " + remainingInFile()
+                                + " bytes left");
+                    }
+                    byte[] bytes = new byte[length];
+                    ensure(length);
+                    window.get(bytes);
+                    values[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                return values;
+            }
+            int[] ints = encoding == Encoding.INTEGER ? new int[CHUNK] : null;
+            long[] longs = encoding == Encoding.LONG ? new long[CHUNK] : null;
+            double[] doubles = encoding == Encoding.DOUBLE ? new double[CHUNK] : null;
+            for (int i = 0; i < size; ) {
+                int count = Math.min(CHUNK, size - i);
+                ensure(count * encoding.width);
+                // bulk reads from a view of the window, boxing from a small array on the heap
+                switch (encoding) {
+                    case INTEGER -> {
+                        window.asIntBuffer().get(ints, 0, count);
+                        for (int j = 0; j < count; j++) {
+                            values[i + j] = ints[j];
+                        }
+                    }
+                    case LONG -> {
+                        window.asLongBuffer().get(longs, 0, count);
+                        for (int j = 0; j < count; j++) {
+                            values[i + j] = longs[j];
+                        }
+                    }
+                    default -> {
+                        window.asDoubleBuffer().get(doubles, 0, count);
+                        for (int j = 0; j < count; j++) {
+                            values[i + j] = doubles[j];
+                        }
+                    }
+                }
+                window.position(window.position() + count * encoding.width);
+                i += count;
+            }
+            return values;
+        }
+
+        /**
+         * Gets the number of bytes of the file after the current position.
+         */
+        private int remainingInFile() {
+            return (int) Math.min(Integer.MAX_VALUE, fileSize - offset - window.position());
+        }
+
+        /**
+         * Reads the value written by {@link #putVarInt(ByteBuffer, int)}.
+         */
+        private int getVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = window.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    if (value < 0) {
+                        throw new IOException("Invalid string length " + Integer.toUnsignedString(value));
+                    }
+                    return value;
+                }
+            }
+            throw new IOException("Invalid string length");
+        }
+
+        /**
+         * Unmaps the current window.
+         */
+        void release() {
+            if (window.isDirect()) {
+                OffHeapStorage.release(window);
+            }
+        }
+    }
+}
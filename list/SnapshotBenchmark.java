@@ -0,0 +1,81 @@
+package list;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares saving and loading a binary snapshot of ComparableList against rebuilding the list
+ * by adding the elements one by one, which is what restoring a list took before snapshots.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class SnapshotBenchmark {
+    @Param({"1000000", "10000000"})
+    private int size;
+    @Param({"Integer", "Long", "Double", "String"})
+    private String type;
+    private Comparable[] elements;                                     // elements of the saved list
+    private ComparableList list;                                       // the list to save
+    private Path file;                                                 // snapshot of the list
+
+    @Setup
+    public void setUp() throws IOException {
+        elements = ComparableListBenchmark.elements(type, size, new Random(42));
+        list = ComparableListBenchmark.copy(elements, ComparableList.Layout.ARRAY);
+        file = Files.createTempFile("snapshot", ".bin");
+        list.save(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Path save() throws IOException {
+        list.save(file);
+        return file;
+    }
+
+    @Benchmark
+    public ComparableList load() throws IOException {
+        return ComparableList.load(file);
+    }
+
+    @Benchmark
+    public ComparableList rebuild() {
+        return ComparableListBenchmark.copy(elements, ComparableList.Layout.ARRAY);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SnapshotBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
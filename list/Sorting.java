@@ -0,0 +1,277 @@
+package list;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorting engine used by ComparableList. Provides a stable, run-detecting merge sort
+ * and its parallel counterpart running in the common ForkJoinPool.
+ */
+final class Sorting {
+    static final int MIN_RUN = 32;                                     // shorter runs are extended by insertion sort
+    static final int PARALLEL_THRESHOLD = 1 << 13;                     // below this size work is not split further
+
+    private Sorting() {
+    }
+
+    /**
+     * Sorts the range of the array. Already ordered (or strictly reversed) runs are detected
+     * and merged pairwise, so the sorted input costs a single pass.
+     * @param a the array to be sorted
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @param comparator the order to sort in
+     * @param <E> type of elements
+     */
+    static <E> void sort(E[] a, int from, int to, Comparator<? super E> comparator) {
+        if (to - from < 2) {
+            return;
+        }
+        @SuppressWarnings("unchecked") E[] buffer = (E[]) new Object[to];
+        sort(a, buffer, from, to, comparator);
+    }
+
+    /**
+     * Sorts the range of the array in parallel. The range is split into halves, the halves are sorted
+     * as separate tasks and then merged, the merge itself being split as well.
+     * @param a the array to be sorted
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @param comparator the order to sort in
+     * @param <E> type of elements
+     */
+    static <E> void parallelSort(E[] a, int from, int to, Comparator<? super E> comparator) {
+        if (to - from <= PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() == 1) {
+            sort(a, from, to, comparator);
+            return;
+        }
+        @SuppressWarnings("unchecked") E[] buffer = (E[]) new Object[to];
+        ForkJoinPool.commonPool().invoke(new SortTask<>(a, buffer, from, to, comparator));
+    }
+
+    /**
+     * Sorts the range using the buffer, which has to be at least {@code to} long.
+     */
+    private static <E> void sort(E[] a, E[] buffer, int from, int to, Comparator<? super E> comparator) {
+        int[] ends = new int[(to - from) / MIN_RUN + 2];
+        int runs = 0;
+        for (int lo = from; lo < to; ) {
+            int hi = countRun(a, lo, to, comparator);
+            if (hi - lo < MIN_RUN) {
+                int forced = Math.min(to, lo + MIN_RUN);
+                insertionSort(a, lo, forced, hi, comparator);
+                hi = forced;
+            }
+            ends[runs++] = hi;
+            lo = hi;
+        }
+        E[] src = a;
+        E[] dst = buffer;
+        while (runs > 1) {
+            int merged = 0;
+            int lo = from;
+            for (int r = 0; r < runs; r += 2) {
+                if (r + 1 < runs) {
+                    merge(src, dst, lo, ends[r], ends[r + 1], comparator);
+                    lo = ends[r + 1];
+                } else {
+                    System.arraycopy(src, lo, dst, lo, ends[r] - lo);
+                    lo = ends[r];
+                }
+                ends[merged++] = lo;
+            }
+            runs = merged;
+            E[] temp = src;
+            src = dst;
+            dst = temp;
+        }
+        if (src != a) {
+            System.arraycopy(src, from, a, from, to - from);
+        }
+    }
+
+    /**
+     * Finds the end of the run starting at the specific index. A strictly descending run is reversed,
+     * so that the run is always ascending afterwards.
+     * @return the end of the run, exclusive
+     */
+    private static <E> int countRun(E[] a, int lo, int to, Comparator<? super E> comparator) {
+        int hi = lo + 1;
+        if (hi == to) {
+            return hi;
+        }
+        if (comparator.compare(a[hi++], a[lo]) < 0) {
+            while (hi < to && comparator.compare(a[hi], a[hi - 1]) < 0) {
+                hi++;
+            }
+            reverse(a, lo, hi);
+        } else {
+            while (hi < to && comparator.compare(a[hi], a[hi - 1]) >= 0) {
+                hi++;
+            }
+        }
+        return hi;
+    }
+
+    /**
+     * Sorts the range by binary insertion, knowing that elements before {@code start} are already sorted.
+     * Equal elements are inserted after the existing ones, which keeps the sort stable.
+     */
+    private static <E> void insertionSort(E[] a, int lo, int hi, int start, Comparator<? super E> comparator) {
+        for (int i = start; i < hi; i++) {
+            E pivot = a[i];
+            int left = lo;
+            int right = i;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (comparator.compare(pivot, a[mid]) < 0) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            System.arraycopy(a, left, a, left + 1, i - left);
+            a[left] = pivot;
+        }
+    }
+
+    /**
+     * Merges two adjacent sorted ranges of {@code src} into the same positions of {@code dst}.
+     */
+    private static <E> void merge(E[] src, E[] dst, int lo, int mid, int hi, Comparator<? super E> comparator) {
+        if (comparator.compare(src[mid - 1], src[mid]) <= 0) {
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+            return;
+        }
+        merge(src, lo, mid, src, mid, hi, dst, lo, comparator);
+    }
+
+    /**
+     * Merges two sorted ranges into the destination, taking from the left range first on ties.
+     */
+    private static <E> void merge(E[] left, int leftFrom, int leftTo, E[] right, int rightFrom, int rightTo,
+                                  E[] dst, int at, Comparator<? super E> comparator) {
+        int i = leftFrom;
+        int j = rightFrom;
+        while (i < leftTo && j < rightTo) {
+            dst[at++] = comparator.compare(right[j], left[i]) < 0 ? right[j++] : left[i++];
+        }
+        System.arraycopy(left, i, dst, at, leftTo - i);
+        System.arraycopy(right, j, dst, at + leftTo - i, rightTo - j);
+    }
+
+    /**
+     * Reverses the range of the array in place.
+     */
+    static void reverse(Object[] a, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            Object temp = a[i];
+            a[i] = a[j];
+            a[j] = temp;
+        }
+    }
+
+    /**
+     * Finds the first index in the sorted range whose element is not less than the key
+     * ({@code strict == false}), or greater than the key ({@code strict == true}).
+     */
+    static <E> int search(E[] a, int from, int to, E key, boolean strict, Comparator<? super E> comparator) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            int cmp = comparator.compare(a[mid], key);
+            if (cmp < 0 || (strict && cmp == 0)) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Sorts the halves of the range as subtasks and merges them back into the array.
+     */
+    private static final class SortTask<E> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final E[] a;
+        private final E[] buffer;
+        private final int from;
+        private final int to;
+        private final Comparator<? super E> comparator;
+
+        SortTask(E[] a, E[] buffer, int from, int to, Comparator<? super E> comparator) {
+            this.a = a;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                sort(a, buffer, from, to, comparator);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SortTask<>(a, buffer, from, mid, comparator),
+                      new SortTask<>(a, buffer, mid, to, comparator));
+            if (comparator.compare(a[mid - 1], a[mid]) <= 0) {
+                return;
+            }
+            new MergeTask<>(a, from, mid, mid, to, buffer, from, comparator).compute();
+            System.arraycopy(buffer, from, a, from, to - from);
+        }
+    }
+
+    /**
+     * Merges two sorted ranges, splitting the larger one at its middle and the smaller one
+     * at the matching position, so that both parts can be merged independently.
+     */
+    private static final class MergeTask<E> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final E[] src;
+        private final int leftFrom;
+        private final int leftTo;
+        private final int rightFrom;
+        private final int rightTo;
+        private final E[] dst;
+        private final int at;
+        private final Comparator<? super E> comparator;
+
+        MergeTask(E[] src, int leftFrom, int leftTo, int rightFrom, int rightTo,
+                  E[] dst, int at, Comparator<? super E> comparator) {
+            this.src = src;
+            this.leftFrom = leftFrom;
+            this.leftTo = leftTo;
+            this.rightFrom = rightFrom;
+            this.rightTo = rightTo;
+            this.dst = dst;
+            this.at = at;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            int leftSize = leftTo - leftFrom;
+            int rightSize = rightTo - rightFrom;
+            if (leftSize + rightSize <= PARALLEL_THRESHOLD || leftSize == 0 || rightSize == 0) {
+                merge(src, leftFrom, leftTo, src, rightFrom, rightTo, dst, at, comparator);
+                return;
+            }
+            int leftSplit;
+            int rightSplit;
+            if (leftSize >= rightSize) {
+                leftSplit = (leftFrom + leftTo) >>> 1;
+                rightSplit = search(src, rightFrom, rightTo, src[leftSplit], false, comparator);
+            } else {
+                rightSplit = (rightFrom + rightTo) >>> 1;
+                leftSplit = search(src, leftFrom, leftTo, src[rightSplit], true, comparator);
+            }
+            int secondAt = at + (leftSplit - leftFrom) + (rightSplit - rightFrom);
+            invokeAll(new MergeTask<>(src, leftFrom, leftSplit, rightFrom, rightSplit, dst, at, comparator),
+                      new MergeTask<>(src, leftSplit, leftTo, rightSplit, rightTo, dst, secondAt, comparator));
+        }
+    }
+}
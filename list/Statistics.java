@@ -0,0 +1,180 @@
+package list;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Summary of the elements of a ComparableList, computed in a single pass:
+ * the number of elements, the minimum, the maximum and whether they are sorted.
+ * @param <E> type of elements the list contains
+ */
+public final class Statistics<E extends Comparable<E>> {
+    private final int count;                                           // number of elements
+    private final E min;                                               // the minimum, null if there are no elements
+    private final E max;                                               // the maximum, null if there are no elements
+    private final E first;                                             // the first element, used for combining
+    private final E last;                                              // the last element, used for combining
+    private final boolean sortedAscending;                             // elements are in the ascending order
+    private final boolean sortedDescending;                            // elements are in the descending order
+
+    Statistics(int count, E min, E max, E first, E last, boolean sortedAscending, boolean sortedDescending) {
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.first = first;
+        this.last = last;
+        this.sortedAscending = sortedAscending;
+        this.sortedDescending = sortedDescending;
+    }
+
+    /**
+     * Computes the statistics of the range of the array in a single pass.
+     * @param values the array of elements
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @param <E> type of elements
+     * @return the statistics of the range
+     */
+    static <E extends Comparable<E>> Statistics<E> of(E[] values, int from, int to) {
+        if (from >= to) {
+            return new Statistics<>(0, null, null, null, null, true, true);
+        }
+        E min = values[from];
+        E max = min;
+        E previous = min;
+        boolean ascending = true;
+        boolean descending = true;
+        for (int i = from + 1; i < to; i++) {
+            E value = values[i];
+            int cmp = value.compareTo(previous);
+            if (cmp < 0) {
+                // smaller than the previous one, so it cannot be a new maximum
+                ascending = false;
+                if (value.compareTo(min) < 0) {
+                    min = value;
+                }
+            } else if (cmp > 0) {
+                descending = false;
+                if (value.compareTo(max) > 0) {
+                    max = value;
+                }
+            }
+            previous = value;
+        }
+        return new Statistics<>(to - from, min, max, values[from], previous, ascending, descending);
+    }
+
+    /**
+     * Computes the statistics of the range of the array, splitting the work across the common ForkJoinPool.
+     * @param values the array of elements
+     * @param from the first index, inclusive
+     * @param to the last index, exclusive
+     * @param <E> type of elements
+     * @return the statistics of the range
+     */
+    static <E extends Comparable<E>> Statistics<E> parallel(E[] values, int from, int to) {
+        if (to - from <= Sorting.PARALLEL_THRESHOLD) {
+            return of(values, from, to);
+        }
+        return ForkJoinPool.commonPool().invoke(new StatisticsTask<>(values, from, to));
+    }
+
+    /**
+     * Combines the statistics of this range with the statistics of the range following it.
+     * @param next the statistics of the following range
+     * @return the statistics of both ranges together
+     */
+    Statistics<E> combine(Statistics<E> next) {
+        if (count == 0) {
+            return next;
+        }
+        if (next.count == 0) {
+            return this;
+        }
+        int cmp = last.compareTo(next.first);
+        return new Statistics<>(count + next.count,
+                                next.min.compareTo(min) < 0 ? next.min : min,
+                                next.max.compareTo(max) > 0 ? next.max : max,
+                                first, next.last,
+                                sortedAscending && next.sortedAscending && cmp <= 0,
+                                sortedDescending && next.sortedDescending && cmp >= 0);
+    }
+
+    /**
+     * Gets the number of elements.
+     * @return the number of elements
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the minimum element.
+     * @return the minimum element or {@code null} if there are no elements
+     */
+    public E getMin() {
+        return min;
+    }
+
+    /**
+     * Gets the maximum element.
+     * @return the maximum element or {@code null} if there are no elements
+     */
+    public E getMax() {
+        return max;
+    }
+
+    /**
+     * Checks if the elements were sorted in the ascending order.
+     * @return {@code true} if the elements were sorted in the ascending order, otherwise {@code false}
+     */
+    public boolean isSortedAscending() {
+        return sortedAscending;
+    }
+
+    /**
+     * Checks if the elements were sorted in the descending order.
+     * @return {@code true} if the elements were sorted in the descending order, otherwise {@code false}
+     */
+    public boolean isSortedDescending() {
+        return sortedDescending;
+    }
+
+    /**
+     * Produces a readable string representation of the statistics.
+     * @return the string representation of the statistics
+     */
+    @Override
+    public String toString() {
+        return String.format("Count: %d, Min: %s, Max: %s, Sorted ascending: %b, Sorted descending: %b",
+                             count, min, max, sortedAscending, sortedDescending);
+    }
+
+    /**
+     * Computes the statistics of the halves of the range as subtasks and combines them.
+     */
+    private static final class StatisticsTask<E extends Comparable<E>> extends RecursiveTask<Statistics<E>> {
+        private static final long serialVersionUID = 1L;
+        private final E[] values;
+        private final int from;
+        private final int to;
+
+        StatisticsTask(E[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Statistics<E> compute() {
+            if (to - from <= Sorting.PARALLEL_THRESHOLD) {
+                return of(values, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            StatisticsTask<E> left = new StatisticsTask<>(values, from, mid);
+            left.fork();
+            Statistics<E> right = new StatisticsTask<>(values, mid, to).compute();
+            return left.join().combine(right);
+        }
+    }
+}